@@ -0,0 +1,77 @@
+package pipiolo.querydsl.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pipiolo.querydsl.QuerydslApplication;
+import pipiolo.querydsl.entity.Member;
+import pipiolo.querydsl.entity.Team;
+import pipiolo.querydsl.repository.MemberJpaRepository;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * 벤치마크용 스프링 컨텍스트
+ * 메모리 H2 에 rows 건의 회원을 넣고 시작한다. (팀은 TEAM_COUNT 개, 나이는 0 ~ 99)
+ */
+public class BenchmarkContext {
+
+    public static final int TEAM_COUNT = 10;
+
+    private BenchmarkContext() {
+    }
+
+    // 커맨드 라인 인자는 application.yml 보다 우선한다. (spring.profiles.active: local 을 덮어쓴다)
+    public static ConfigurableApplicationContext start(int rows, String... extraArgs) {
+        List<String> args = new ArrayList<>(Arrays.asList(
+                "--spring.profiles.active=bench",
+                "--spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.open-in-view=false",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--spring.jpa.properties.hibernate.use_sql_comments=false",
+                "--logging.level.org.hibernate.SQL=warn",
+                "--logging.level.org.hibernate.type=warn",
+                "--decorator.datasource.p6spy.enable-logging=false",
+                "--querydsl.cache.count.maximum-size=0")); // 카운트 캐시는 끄고 쿼리 자체를 잰다.
+        args.addAll(Arrays.asList(extraArgs));
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(new String[0]));
+
+        seed(context, rows);
+        return context;
+    }
+
+    private static void seed(ConfigurableApplicationContext context, int rows) {
+        EntityManager em = context.getBean(EntityManager.class);
+        TransactionTemplate tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        tx.executeWithoutResult(status -> {
+            List<Team> teams = new ArrayList<>();
+            for (int i = 0; i < TEAM_COUNT; i++) {
+                Team team = new Team("team" + i);
+                em.persist(team);
+                teams.add(team);
+            }
+            context.getBean(MemberJpaRepository.class).saveAll(members(rows, teams));
+        });
+    }
+
+    // rows 건의 회원을 하나씩 만들어 내는 Iterable (미리 List 로 만들지 않는다)
+    public static Iterable<Member> members(int rows, List<Team> teams) {
+        return () -> IntStream.range(0, rows)
+                .mapToObj(i -> {
+                    Member member = new Member("member" + i, i % 100);
+                    member.setTeam(teams.get(i % teams.size())); // changeTeam() 은 team.members 에 계속 쌓인다.
+                    return member;
+                })
+                .iterator();
+    }
+}
@@ -0,0 +1,73 @@
+package pipiolo.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pipiolo.querydsl.dto.BulkInsertResult;
+import pipiolo.querydsl.entity.Team;
+import pipiolo.querydsl.repository.MemberJpaRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 대량 저장(MemberJpaRepository.saveAll) 처리량
+ * blockSize = 1 -> insert 마다 시퀀스 호출 (기존 @GeneratedValue 와 같다)
+ * blockSize = 50 -> 시퀀스 호출 1번에 id 50개 (pooled-lo)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+public class InsertBenchmark {
+
+    @Param({"1", "50"})
+    int blockSize;
+
+    @Param({"10000"})
+    int rows;
+
+    ConfigurableApplicationContext context;
+    MemberJpaRepository memberJpaRepository;
+    List<Team> teams;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(0, "--spring.jpa.properties.querydsl.id.block-size=" + blockSize);
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+
+        EntityManager em = context.getBean(EntityManager.class);
+        teams = new TransactionTemplate(context.getBean(PlatformTransactionManager.class)).execute(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            return List.of(teamA, teamB);
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // 결과의 rowsPerSecond 로도 확인할 수 있다.
+    @Benchmark
+    public BulkInsertResult saveAll() {
+        return memberJpaRepository.saveAll(BenchmarkContext.members(rows, teams));
+    }
+}
@@ -0,0 +1,108 @@
+package pipiolo.querydsl.benchmark;
+
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Projections;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import pipiolo.querydsl.dto.MemberDto;
+import pipiolo.querydsl.dto.QMemberDto;
+import pipiolo.querydsl.projection.FastProjections;
+
+import java.util.concurrent.TimeUnit;
+
+import static pipiolo.querydsl.entity.QMember.member;
+
+/**
+ * row -> DTO 변환 비용만 비교한다. (DB 없음)
+ * 하이버네이트가 돌려준 Object[] 를 FactoryExpression.newInstance() 로 바꾸는 부분이 Querydsl 이 row 마다 하는 일이다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProjectionBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    Object[][] rows;
+
+    FactoryExpression<MemberDto> bean;
+    FactoryExpression<MemberDto> fields;
+    FactoryExpression<MemberDto> constructor;
+    FactoryExpression<MemberDto> queryProjection;
+
+    FactoryExpression<MemberDto> fastBean;
+    FactoryExpression<MemberDto> fastFields;
+    FactoryExpression<MemberDto> fastConstructor;
+
+    @Setup
+    public void setUp() {
+        rows = new Object[ROWS][];
+        for (int i = 0; i < ROWS; i++) {
+            rows[i] = new Object[]{"member" + i, i % 100};
+        }
+
+        bean = Projections.bean(MemberDto.class, member.username, member.age);
+        fields = Projections.fields(MemberDto.class, member.username, member.age);
+        constructor = Projections.constructor(MemberDto.class, member.username, member.age);
+        queryProjection = new QMemberDto(member.username, member.age);
+
+        fastBean = FastProjections.bean(MemberDto.class, member.username, member.age);
+        fastFields = FastProjections.fields(MemberDto.class, member.username, member.age);
+        fastConstructor = FastProjections.constructor(MemberDto.class, member.username, member.age);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void projectionsBean(Blackhole bh) {
+        convert(bean, bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void projectionsFields(Blackhole bh) {
+        convert(fields, bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void projectionsConstructor(Blackhole bh) {
+        convert(constructor, bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void queryProjection(Blackhole bh) {
+        convert(queryProjection, bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void fastBean(Blackhole bh) {
+        convert(fastBean, bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void fastFields(Blackhole bh) {
+        convert(fastFields, bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void fastConstructor(Blackhole bh) {
+        convert(fastConstructor, bh);
+    }
+
+    private void convert(FactoryExpression<MemberDto> projection, Blackhole bh) {
+        for (Object[] row : rows) {
+            bh.consume(projection.newInstance(row));
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package pipiolo.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import pipiolo.querydsl.dto.MemberSearchCond;
+import pipiolo.querydsl.dto.MemberTeamDto;
+import pipiolo.querydsl.entity.Member;
+import pipiolo.querydsl.repository.MemberJpaRepository;
+import pipiolo.querydsl.repository.MemberQueryRepository;
+import pipiolo.querydsl.repository.MemberRepository;
+import pipiolo.querydsl.repository.MemberRepositoryCustomImplQuerySupport;
+import pipiolo.querydsl.repository.MemberTestRepository;
+import pipiolo.querydsl.repository.PaginationStrategy;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 같은 검색을 구현한 5가지 방법 + 페이징 5가지 + Querydsl4RepositorySupport.applyPagination 비교
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SearchBenchmark {
+
+    @Param({"1000", "100000"})
+    int rows;
+
+    @Param({"1", "1000"})
+    int page;
+
+    ConfigurableApplicationContext context;
+
+    MemberJpaRepository memberJpaRepository;
+    MemberRepository memberRepository;
+    MemberRepositoryCustomImplQuerySupport querySupport;
+    MemberQueryRepository memberQueryRepository;
+    MemberTestRepository memberTestRepository;
+
+    MemberSearchCond condition;
+    PageRequest pageRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(rows);
+
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        memberRepository = context.getBean(MemberRepository.class);
+        memberQueryRepository = context.getBean(MemberQueryRepository.class);
+        memberTestRepository = context.getBean(MemberTestRepository.class);
+        // 스프링 빈이 아니라서 직접 만든다.
+        querySupport = context.getAutowireCapableBeanFactory().createBean(MemberRepositoryCustomImplQuerySupport.class);
+
+        condition = new MemberSearchCond();
+        condition.setTeamName("team1");
+        condition.setAgeGoe(10);
+        condition.setAgeLoe(60);
+
+        pageRequest = PageRequest.of(page, 20);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // 목록 검색
+
+    @Benchmark
+    public List<MemberTeamDto> jpaRepositorySearch() {
+        return memberJpaRepository.search(condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> jpaRepositorySearchByBuilder() {
+        return memberJpaRepository.searchByBuilder(condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> customImplSearch() {
+        return memberRepository.search(condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> querySupportSearch() {
+        return querySupport.search(condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> queryRepositorySearch() {
+        return memberQueryRepository.search(condition);
+    }
+
+    // 페이징
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageSimple() {
+        return memberRepository.searchPageSimple(condition, pageRequest);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageComplex() {
+        return memberRepository.searchPageComplex(condition, pageRequest);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageCount() {
+        return memberRepository.searchPageCount(condition, pageRequest);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageFinal() {
+        return memberRepository.searchPageFinal(condition, pageRequest);
+    }
+
+    // searchPageFinal(TWO_QUERY) 과 비교
+    @Benchmark
+    public Page<MemberTeamDto> searchPageWindowCount() {
+        return memberRepository.searchPage(condition, pageRequest, PaginationStrategy.WINDOW_COUNT);
+    }
+
+    // 뒤 페이지(page 파라미터)일수록 searchPageFinal 과 차이가 커진다.
+    @Benchmark
+    public Page<MemberTeamDto> searchPageDeferredJoin() {
+        return memberRepository.searchPage(condition, pageRequest, PaginationStrategy.DEFERRED_JOIN);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> querySupportSearchPageSimple() {
+        return querySupport.searchPageSimple(condition, pageRequest);
+    }
+
+    // Querydsl4RepositorySupport
+
+    @Benchmark
+    public Page<Member> searchPageByApplyPage() {
+        return memberTestRepository.searchPageByApplyPage(condition, pageRequest);
+    }
+
+    @Benchmark
+    public Page<Member> applyPagination() {
+        return memberTestRepository.applyPagination(condition, pageRequest);
+    }
+
+    @Benchmark
+    public Page<Member> applyPaginationV2() {
+        return memberTestRepository.applyPaginationV2(condition, pageRequest);
+    }
+}
@@ -0,0 +1,75 @@
+package pipiolo.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import pipiolo.querydsl.dto.MemberSearchCond;
+import pipiolo.querydsl.dto.MemberTeamDto;
+import pipiolo.querydsl.repository.MemberRepository;
+import pipiolo.querydsl.snapshot.MemberSnapshotEngine;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * searchPageFinal(DB) vs 메모리 컬럼 스냅샷
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SnapshotBenchmark {
+
+    @Param({"1000", "100000"})
+    int rows;
+
+    @Param({"1", "1000"})
+    int page;
+
+    ConfigurableApplicationContext context;
+
+    MemberRepository memberRepository;
+    MemberSnapshotEngine snapshotEngine;
+
+    MemberSearchCond condition;
+    PageRequest pageRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(rows, "--querydsl.snapshot.enabled=true");
+
+        memberRepository = context.getBean(MemberRepository.class);
+        snapshotEngine = context.getBean(MemberSnapshotEngine.class);
+        snapshotEngine.rebuild(); // 시드 데이터는 이벤트로도 들어오지만, 스캔으로 만든 상태에서 잰다.
+
+        condition = new MemberSearchCond();
+        condition.setTeamName("team1");
+        condition.setAgeGoe(10);
+        condition.setAgeLoe(60);
+
+        pageRequest = PageRequest.of(page, 20);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageFinal() {
+        return memberRepository.searchPageFinal(condition, pageRequest);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> snapshotSearchPage() {
+        return snapshotEngine.searchPage(condition, pageRequest);
+    }
+}
@@ -1,15 +1,19 @@
 package pipiolo.querydsl;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 import pipiolo.querydsl.entity.Member;
 import pipiolo.querydsl.entity.Team;
+import pipiolo.querydsl.repository.MemberJpaRepository;
 
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.stream.IntStream;
 
 @Profile("local")
 @Component
@@ -32,6 +36,13 @@ public class InitMember {
         @PersistenceContext
         private EntityManager em;
 
+        @Autowired
+        private MemberJpaRepository memberJpaRepository;
+
+        // 데이터 건수는 querydsl.init.member-count 로 조절한다.
+        @Value("${querydsl.init.member-count:100}")
+        private int memberCount;
+
         @Transactional
         public void init() {
             Team teamA = new Team("teamA");
@@ -40,10 +51,16 @@ public class InitMember {
             em.persist(teamA);
             em.persist(teamB);
 
-            for (int i = 0; i < 100; i++) {
-                Team selectedTeam = i % 2 == 0 ? teamA : teamB;
-                em.persist(new Member("member " + i, i, selectedTeam));
-            }
+            // 회원을 미리 List 로 만들지 않고 하나씩 만들어서 넘긴다. (100만 건이어도 메모리 일정)
+            Iterable<Member> members = () -> IntStream.range(0, memberCount)
+                    .mapToObj(i -> {
+                        Member member = new Member("member " + i, i % 100);
+                        member.setTeam(i % 2 == 0 ? teamA : teamB); // changeTeam() 은 team.members 에 계속 쌓인다.
+                        return member;
+                    })
+                    .iterator();
+
+            memberJpaRepository.saveAll(members);
         }
     }
 }
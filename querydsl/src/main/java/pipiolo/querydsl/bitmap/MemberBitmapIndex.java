@@ -0,0 +1,354 @@
+package pipiolo.querydsl.bitmap;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pipiolo.querydsl.cache.TeamNameCache;
+import pipiolo.querydsl.dto.MemberSearchCond;
+import pipiolo.querydsl.dto.MemberTeamDto;
+import pipiolo.querydsl.dto.QMemberTeamDto;
+import pipiolo.querydsl.entity.Member;
+import pipiolo.querydsl.entity.Team;
+import pipiolo.querydsl.event.BulkChangeEvent;
+import pipiolo.querydsl.event.EntityChangeEvent;
+import pipiolo.querydsl.repository.MemberJpaRepository;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.springframework.util.StringUtils.hasText;
+import static pipiolo.querydsl.entity.QMember.member;
+import static pipiolo.querydsl.entity.QTeam.team;
+
+/**
+ * 회원 수 비트맵 인덱스 (querydsl.bitmap.enabled=true 일 때만 빈으로 등록된다.)
+ *
+ * 조건이 넓을수록 searchPageFinal 의 카운트 쿼리(member.count())가 DB 시간의 대부분을 쓴다.
+ * member.id 를 압축 비트맵(Roaring)으로 들고 있다가 조건에 맞는 비트맵끼리 AND 해서 개수만 센다.
+ * - 팀 id 별 비트맵 (팀 이름 -> 팀 id 는 TeamNameCache)
+ * - 나이 값별 비트맵 (범위 조건은 범위 안의 나이 비트맵을 OR)
+ * - 회원 이름별 비트맵 (HashMap)
+ *
+ * - 시작할 때 searchStream() 으로 한 번 읽는다. (rebuild)
+ * - 이후에는 커밋된 Member 변경 이벤트로 갱신한다. 벌크 연산은 바뀐 id 만 다시 읽는다.
+ * - 다시 만드는 중이거나 쓰기 트랜잭션 안이면 count() 는 값을 주지 않는다. -> DB 로 센다.
+ * - rebuild 는 한 번에 하나씩만 돈다. (먼저 끝난 rebuild 가 building 을 풀면 다른 rebuild 가 읽는 중에 들어온 이벤트를 잃는다.)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "querydsl.bitmap.enabled", havingValue = "true")
+public class MemberBitmapIndex {
+
+    private static final int RELOAD_CHUNK_SIZE = 1000;
+
+    private final MemberJpaRepository memberJpaRepository;
+    private final TeamNameCache teamNameCache;
+    private final JPAQueryFactory query;
+    private final TransactionTemplate newReadOnlyTransaction;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Bitmaps bitmaps = new Bitmaps();
+
+    private final Object rebuildLock = new Object();
+
+    // lock = pending
+    private final List<Consumer<Bitmaps>> pending = new ArrayList<>();
+    private boolean building = true; // 처음 만들기 전에는 쓸 수 없다.
+    private boolean built;
+
+    public MemberBitmapIndex(MemberJpaRepository memberJpaRepository,
+                             TeamNameCache teamNameCache,
+                             EntityManager em,
+                             PlatformTransactionManager transactionManager) {
+        this.memberJpaRepository = memberJpaRepository;
+        this.teamNameCache = teamNameCache;
+        this.query = new JPAQueryFactory(em);
+        this.newReadOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.newReadOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.newReadOnlyTransaction.setReadOnly(true);
+    }
+
+    public OptionalLong count(MemberSearchCond condition) {
+        // 쓰기 트랜잭션 안에서는 아직 커밋 안 된 데이터까지 세야 한다.
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return OptionalLong.empty();
+        }
+        synchronized (pending) {
+            if (building) {
+                return OptionalLong.empty();
+            }
+        }
+
+        // 팀 이름 캐시가 DB 를 읽을 수 있으니 락 밖에서 찾는다.
+        List<Long> teamIds = hasText(condition.getTeamName()) ? teamNameCache.getIds(condition.getTeamName()) : null;
+
+        lock.readLock().lock();
+        try {
+            return OptionalLong.of(bitmaps.count(condition, teamIds));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (pending) {
+                building = true;
+            }
+
+            long start = System.nanoTime();
+            Bitmaps rebuilt = new Bitmaps();
+            try {
+                memberJpaRepository.searchStream(new MemberSearchCond(), dto ->
+                        rebuilt.add(dto.getMemberId(), new Entry(dto.getTeamId(), dto.getAge(), dto.getUsername())));
+                rebuilt.runOptimize();
+            } catch (RuntimeException | Error e) {
+                // 한 번이라도 만들었으면 모아둔 이벤트를 적용하고 그대로 쓴다. 아니면 계속 DB 로 센다.
+                synchronized (pending) {
+                    if (built) {
+                        pending.forEach(this::write);
+                        building = false;
+                    }
+                    pending.clear();
+                }
+                throw e;
+            }
+
+            synchronized (pending) {
+                lock.writeLock().lock();
+                try {
+                    bitmaps = rebuilt;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                pending.forEach(this::write);
+                pending.clear();
+                building = false;
+                built = true;
+            }
+            log.info("member bitmap index rebuilt. members = {}, elapsed = {}ms",
+                    rebuilt.entries.size(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        if (!event.isFor(Member.class)) {
+            return;
+        }
+
+        long memberId = (Long) event.getId();
+        if (event.getType() == EntityChangeEvent.Type.DELETE) {
+            apply(b -> b.remove(memberId));
+            return;
+        }
+
+        Team memberTeam = (Team) event.getValue("team");
+        Entry entry = new Entry(
+                memberTeam == null ? null : memberTeam.getId(), // 프록시의 id 는 초기화 없이 꺼낼 수 있다.
+                (Integer) event.getValue("age"),
+                (String) event.getValue("username"));
+        apply(b -> {
+            b.remove(memberId);
+            b.add(memberId, entry);
+        });
+    }
+
+    // 벌크 연산은 변경 후 값을 모른다. -> 바뀐 id 만 다시 읽는다. (지워졌으면 제거)
+    @EventListener
+    public void onBulkChange(BulkChangeEvent event) {
+        if (!event.isFor(Member.class)) {
+            return;
+        }
+        if (event.getType() == EntityChangeEvent.Type.DELETE) {
+            apply(b -> event.getIds().forEach(b::remove));
+            return;
+        }
+
+        List<Long> ids = event.getIds();
+        for (int from = 0; from < ids.size(); from += RELOAD_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + RELOAD_CHUNK_SIZE, ids.size()));
+            List<MemberTeamDto> rows = newReadOnlyTransaction.execute(status -> query
+                    .select(new QMemberTeamDto(
+                            member.id.as("memberId"),
+                            member.username,
+                            member.age,
+                            team.id.as("teamId"),
+                            team.name.as("teamName")))
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(member.id.in(chunk))
+                    .fetch());
+
+            apply(b -> {
+                chunk.forEach(b::remove);
+                for (MemberTeamDto row : rows) {
+                    b.add(row.getMemberId(), new Entry(row.getTeamId(), row.getAge(), row.getUsername()));
+                }
+            });
+        }
+    }
+
+    // building 확인과 적용을 한 락 안에서 한다. -> 확인한 뒤 rebuild 가 시작돼서 바꿔 끼울 비트맵에만 적용되는 일이 없다.
+    private void apply(Consumer<Bitmaps> change) {
+        synchronized (pending) {
+            if (building) {
+                pending.add(change);
+                return;
+            }
+            write(change);
+        }
+    }
+
+    private void write(Consumer<Bitmaps> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(bitmaps);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 회원 하나의 인덱스 값 -> 바뀌거나 지워질 때 어느 비트맵에서 빼야 하는지 알기 위해 들고 있는다.
+    private static class Entry {
+
+        private final Long teamId;
+        private final int age;
+        private final String username;
+
+        Entry(Long teamId, int age, String username) {
+            this.teamId = teamId;
+            this.age = age;
+            this.username = username;
+        }
+    }
+
+    private static class Bitmaps {
+
+        private final Roaring64NavigableMap all = new Roaring64NavigableMap();
+        private final Map<Long, Roaring64NavigableMap> byTeam = new HashMap<>();
+        private final NavigableMap<Integer, Roaring64NavigableMap> byAge = new TreeMap<>();
+        private final Map<String, Roaring64NavigableMap> byUsername = new HashMap<>();
+        private final Map<Long, Entry> entries = new HashMap<>();
+
+        long count(MemberSearchCond condition, List<Long> teamIds) {
+            List<Roaring64NavigableMap> filters = new ArrayList<>();
+
+            if (hasText(condition.getUsername())) {
+                Roaring64NavigableMap usernameBitmap = byUsername.get(condition.getUsername());
+                if (usernameBitmap == null) {
+                    return 0;
+                }
+                filters.add(usernameBitmap);
+            }
+            if (teamIds != null) {
+                Roaring64NavigableMap teamBitmap = union(teamIds.stream().map(byTeam::get));
+                if (teamBitmap.isEmpty()) {
+                    return 0;
+                }
+                filters.add(teamBitmap);
+            }
+            if (condition.getAgeGoe() != null || condition.getAgeLoe() != null) {
+                int ageGoe = condition.getAgeGoe() == null ? Integer.MIN_VALUE : condition.getAgeGoe();
+                int ageLoe = condition.getAgeLoe() == null ? Integer.MAX_VALUE : condition.getAgeLoe();
+                if (ageGoe > ageLoe) {
+                    return 0;
+                }
+                filters.add(union(byAge.subMap(ageGoe, true, ageLoe, true).values().stream()));
+            }
+
+            if (filters.isEmpty()) {
+                return all.getLongCardinality();
+            }
+            if (filters.size() == 1) {
+                return filters.get(0).getLongCardinality();
+            }
+
+            // 가장 작은 비트맵을 복사해서 나머지와 AND
+            filters.sort((a, b) -> Long.compare(a.getLongCardinality(), b.getLongCardinality()));
+            Roaring64NavigableMap result = copy(filters.get(0));
+            for (int i = 1; i < filters.size() && !result.isEmpty(); i++) {
+                result.and(filters.get(i));
+            }
+            return result.getLongCardinality();
+        }
+
+        void add(long id, Entry entry) {
+            entries.put(id, entry);
+            all.addLong(id);
+            if (entry.teamId != null) {
+                byTeam.computeIfAbsent(entry.teamId, key -> new Roaring64NavigableMap()).addLong(id);
+            }
+            byAge.computeIfAbsent(entry.age, key -> new Roaring64NavigableMap()).addLong(id);
+            if (entry.username != null) {
+                byUsername.computeIfAbsent(entry.username, key -> new Roaring64NavigableMap()).addLong(id);
+            }
+        }
+
+        void remove(long id) {
+            Entry entry = entries.remove(id);
+            if (entry == null) {
+                return;
+            }
+            all.removeLong(id);
+            if (entry.teamId != null) {
+                removeFrom(byTeam, entry.teamId, id);
+            }
+            removeFrom(byAge, entry.age, id);
+            if (entry.username != null) {
+                removeFrom(byUsername, entry.username, id);
+            }
+        }
+
+        // 연속된 id 구간을 run 으로 압축한다.
+        void runOptimize() {
+            all.runOptimize();
+            byTeam.values().forEach(Roaring64NavigableMap::runOptimize);
+            byAge.values().forEach(Roaring64NavigableMap::runOptimize);
+        }
+
+        private static <K> void removeFrom(Map<K, Roaring64NavigableMap> bitmaps, K key, long id) {
+            Roaring64NavigableMap bitmap = bitmaps.get(key);
+            if (bitmap == null) {
+                return;
+            }
+            bitmap.removeLong(id);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+
+        private static Roaring64NavigableMap union(Stream<Roaring64NavigableMap> bitmaps) {
+            Roaring64NavigableMap result = new Roaring64NavigableMap();
+            bitmaps.filter(Objects::nonNull).forEach(result::or);
+            return result;
+        }
+
+        private static Roaring64NavigableMap copy(Roaring64NavigableMap bitmap) {
+            Roaring64NavigableMap copy = new Roaring64NavigableMap();
+            copy.or(bitmap);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package pipiolo.querydsl.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pipiolo.querydsl.dto.MemberSearchCond;
+import pipiolo.querydsl.entity.Member;
+import pipiolo.querydsl.entity.Team;
+import pipiolo.querydsl.event.BulkChangeEvent;
+import pipiolo.querydsl.event.EntityChangeEvent;
+
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 페이징 검색의 totalCount 캐시
+ * 같은 조건으로 페이지만 넘기는 경우 카운트 쿼리를 다시 날리지 않는다.
+ *
+ * - 키: 정규화된 MemberSearchCond + 버전
+ * - TTL + 최대 개수로 제거
+ * - Member / Team 변경(벌크 연산 포함)이 커밋되면 버전을 올리고 전부 무효화 (어떤 조건의 카운트가 바뀌는지 따지는 것보다 단순하고 안전하다)
+ *   무효화 직전에 시작한 카운트가 예전 값을 넣더라도 예전 버전 키라서 다시 읽히지 않는다. (MemberSearchResultCache 와 같은 방식)
+ */
+@Component
+public class MemberCountCache {
+
+    private final AtomicLong version = new AtomicLong();
+    private final Cache<CountKey, Long> cache;
+
+    public MemberCountCache(@Value("${querydsl.cache.count.ttl-seconds:30}") long ttlSeconds,
+                            @Value("${querydsl.cache.count.maximum-size:10000}") long maximumSize) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    public long get(MemberSearchCond condition, LongSupplier countQuery) {
+        // 쓰기 트랜잭션 안에서는 아직 커밋 안 된 데이터까지 카운트된다. -> 캐시하면 안 됨
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return countQuery.getAsLong();
+        }
+        return cache.get(new CountKey(condition.normalized(), version.get()), key -> countQuery.getAsLong());
+    }
+
+    // 카운트 쿼리 없이 캐시에 있을 때만 (쓰기 트랜잭션 안이면 항상 empty)
+    public OptionalLong getIfPresent(MemberSearchCond condition) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return OptionalLong.empty();
+        }
+        Long count = cache.getIfPresent(new CountKey(condition.normalized(), version.get()));
+        return count == null ? OptionalLong.empty() : OptionalLong.of(count);
+    }
+
+    public void invalidateAll() {
+        version.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        if (event.isFor(Member.class) || event.isFor(Team.class)) {
+            invalidateAll();
+        }
+    }
+
+    @EventListener
+    public void onBulkChange(BulkChangeEvent event) {
+        if (event.isFor(Member.class) || event.isFor(Team.class)) {
+            invalidateAll();
+        }
+    }
+
+    @EqualsAndHashCode
+    @ToString
+    private static class CountKey {
+
+        private final MemberSearchCond condition;
+        private final long version;
+
+        CountKey(MemberSearchCond condition, long version) {
+            this.condition = condition;
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package pipiolo.querydsl.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pipiolo.querydsl.dto.MemberSearchCond;
+import pipiolo.querydsl.dto.MemberTeamDto;
+import pipiolo.querydsl.entity.Member;
+import pipiolo.querydsl.entity.Team;
+import pipiolo.querydsl.event.BulkChangeEvent;
+import pipiolo.querydsl.event.EntityChangeEvent;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 검색 결과 캐시 (search / searchPageFinal)
+ *
+ * - 키: 검색 종류 + 정규화된 MemberSearchCond + Pageable + 버전
+ * - 개수가 아니라 추정 바이트(weigher)로 크기를 제한한다. -> 페이지 크기가 제각각이어도 메모리 상한이 지켜진다.
+ * - Caffeine 의 기본 정책(W-TinyLFU)으로 자주 쓰이는 결과만 남긴다.
+ * - Member / Team 변경(벌크 연산 포함)이 커밋되면 버전을 올리고 전부 비운다.
+ *   비우기 직전에 시작한 조회가 예전 데이터를 넣더라도 예전 버전 키라서 다시 읽히지 않는다.
+ * - SearchCoalescer 와 같이 쓸 때는 버전이 붙은 검색 종류를 키로 넘긴다. (get(..., Function))
+ *   그렇지 않으면 비운 뒤의 요청이 비우기 전에 시작한 조회에 합쳐져서 예전 결과를 새 버전 키로 넣는다.
+ *
+ * 메트릭: member.search.result (CaffeineCacheMetrics: 히트 / 미스 / 제거), member.search.result.weighted.size (bytes)
+ */
+@Component
+public class MemberSearchResultCache {
+
+    private final AtomicLong version = new AtomicLong();
+    private final Cache<ResultKey, Object> cache;
+
+    public MemberSearchResultCache(MeterRegistry registry,
+                                   @Value("${querydsl.cache.result.ttl-seconds:60}") long ttlSeconds,
+                                   @Value("${querydsl.cache.result.maximum-bytes:67108864}") long maximumBytes) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumWeight(maximumBytes)
+                .weigher((ResultKey key, Object value) -> ResultKey.BYTES + estimateBytes(value))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(registry, cache, "member.search.result");
+        Gauge.builder("member.search.result.weighted.size", cache,
+                        c -> c.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L))
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    public <T> T get(String operation, MemberSearchCond condition, Pageable pageable, Supplier<T> search) {
+        return get(operation, condition, pageable, versionedOperation -> search.get());
+    }
+
+    // search 는 "검색 종류@버전" 을 받는다. -> SearchCoalescer 키로 쓰면 캐시를 비우기 전에 시작한 조회와 합쳐지지 않는다.
+    @SuppressWarnings("unchecked")
+    public <T> T get(String operation, MemberSearchCond condition, Pageable pageable, Function<String, T> search) {
+        long current = version.get();
+        String versionedOperation = operation + "@" + current;
+
+        // 쓰기 트랜잭션 안에서는 아직 커밋 안 된 데이터까지 보인다. -> 캐시하면 안 됨
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return search.apply(versionedOperation);
+        }
+        ResultKey key = new ResultKey(operation, condition.normalized(), pageable, current);
+        return (T) cache.get(key, k -> search.apply(versionedOperation));
+    }
+
+    public void invalidateAll() {
+        version.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        if (event.isFor(Member.class) || event.isFor(Team.class)) {
+            invalidateAll();
+        }
+    }
+
+    @EventListener
+    public void onBulkChange(BulkChangeEvent event) {
+        if (event.isFor(Member.class) || event.isFor(Team.class)) {
+            invalidateAll();
+        }
+    }
+
+    // 64bit JVM + compressed oops 기준 대략적인 크기 (정확할 필요는 없다. 상한이 터무니없지 않으면 된다.)
+    static int estimateBytes(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof Page) {
+            return 64 + estimateBytes(((Page<?>) value).getContent());
+        }
+        if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            int bytes = 32 + 4 * collection.size(); // 객체 헤더 + 참조 배열
+            for (Object element : collection) {
+                bytes += estimateBytes(element);
+            }
+            return bytes;
+        }
+        if (value instanceof MemberTeamDto) {
+            MemberTeamDto dto = (MemberTeamDto) value;
+            return 32                                // 객체 헤더 + 필드
+                    + 16 + (dto.getTeamId() == null ? 0 : 16) // Long
+                    + stringBytes(dto.getUsername())
+                    + stringBytes(dto.getTeamName());
+        }
+        return 64;
+    }
+
+    private static int stringBytes(String value) {
+        return value == null ? 0 : 40 + value.length() * 2;
+    }
+
+    @EqualsAndHashCode
+    @ToString
+    private static class ResultKey {
+
+        private static final int BYTES = 128;
+
+        private final String operation;
+        private final MemberSearchCond condition;
+        private final Pageable pageable; // search 처럼 페이징이 없으면 null
+        private final long version;
+
+        ResultKey(String operation, MemberSearchCond condition, Pageable pageable, long version) {
+            this.operation = operation;
+            this.condition = condition;
+            this.pageable = pageable;
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package pipiolo.querydsl.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+import pipiolo.querydsl.dto.MemberSearchCond;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 같은 검색 동시 실행 합치기 (single-flight)
+ *
+ * 같은 조건 + 같은 페이지 요청이 동시에 여러 개 들어오면 DB 조회는 처음 들어온 요청(leader)만 한다.
+ * 조회 중에 들어온 요청(follower)은 leader 의 결과를 같이 받는다. 조회가 끝나면 바로 지운다. -> 결과를 캐시하지 않는다.
+ *
+ * - 키: 검색 종류 + 정규화된 MemberSearchCond + Pageable
+ * - 락 없이 ConcurrentHashMap.putIfAbsent() 로 leader 를 정한다.
+ * - 같은 결과 객체를 여러 요청이 공유한다. -> 꺼내서 고치면 안 된다. (컨트롤러는 직렬화만 한다.)
+ * - 쓰기 트랜잭션 안에서는 합치지 않는다. (커밋 안 된 데이터가 보이는 결과를 다른 요청에 줄 수 없다.)
+ * - follower 는 follower-timeout-ms 까지만 기다린다. 그래도 안 끝나면 직접 조회한다.
+ *   (leader 가 멈추면 같은 키의 요청이 전부 같이 멈추는 것을 막는다.)
+ */
+@Component
+public class SearchCoalescer {
+
+    private final boolean enabled;
+    private final long followerTimeoutMs;
+    private final Map<SearchKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter leaders;
+    private final Counter followers;
+    private final Counter followerTimeouts;
+
+    public SearchCoalescer(MeterRegistry registry,
+                           @Value("${querydsl.search.coalescing.enabled:true}") boolean enabled,
+                           @Value("${querydsl.search.coalescing.follower-timeout-ms:3000}") long followerTimeoutMs) {
+        Assert.isTrue(followerTimeoutMs > 0, "followerTimeoutMs must be positive!");
+        this.enabled = enabled;
+        this.followerTimeoutMs = followerTimeoutMs;
+        this.leaders = Counter.builder("member.search.coalesce")
+                .tag("role", "leader")
+                .register(registry);
+        this.followers = Counter.builder("member.search.coalesce")
+                .tag("role", "follower")
+                .register(registry);
+        this.followerTimeouts = Counter.builder("member.search.coalesce.follower.timeout")
+                .register(registry);
+
+        // 전체 요청 중 DB 조회 없이 다른 요청의 결과를 받은 비율
+        Gauge.builder("member.search.coalesce.ratio", this, SearchCoalescer::coalescingRatio)
+                .register(registry);
+        Gauge.builder("member.search.coalesce.in.flight", inFlight, Map::size)
+                .register(registry);
+    }
+
+    public <T> T execute(String operation, MemberSearchCond condition, Pageable pageable, Supplier<T> search) {
+        if (!enabled || (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly())) {
+            return search.get();
+        }
+
+        SearchKey key = new SearchKey(operation, condition.normalized(), pageable);
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, future);
+
+        if (running != null) {
+            followers.increment();
+            return join(running, search);
+        }
+
+        leaders.increment();
+        try {
+            T result = search.get();
+            future.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T join(CompletableFuture<Object> running, Supplier<T> search) {
+        try {
+            return (T) running.get(followerTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // leader 를 더 기다리지 않고 직접 조회한다. leader 의 조회는 그대로 둔다. (다른 follower 가 기다리고 있을 수 있다.)
+            followerTimeouts.increment();
+            return search.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } catch (ExecutionException e) {
+            // leader 가 던진 예외를 그대로 던진다.
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    private double coalescingRatio() {
+        double total = leaders.count() + followers.count();
+        return total == 0 ? 0 : followers.count() / total;
+    }
+
+    @EqualsAndHashCode
+    @ToString
+    private static class SearchKey {
+
+        private final String operation;
+        private final MemberSearchCond condition;
+        private final Pageable pageable; // v1 처럼 페이징이 없으면 null
+
+        SearchKey(String operation, MemberSearchCond condition, Pageable pageable) {
+            this.operation = operation;
+            this.condition = condition;
+            this.pageable = pageable;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package pipiolo.querydsl.cache;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import pipiolo.querydsl.entity.Team;
+import pipiolo.querydsl.event.BulkChangeEvent;
+import pipiolo.querydsl.event.EntityChangeEvent;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static pipiolo.querydsl.entity.QTeam.team;
+
+/**
+ * 팀 id <-> 이름 캐시
+ *
+ * 검색마다 team.name 필터와 조회를 위해 team 을 조인한다.
+ * 팀은 개수가 적고 거의 바뀌지 않기 때문에 메모리에 들고 있으면 member.team.id(FK) 만으로 검색할 수 있다.
+ * 팀 변경이 커밋되면 비우고, 다음 조회 때 다시 읽는다.
+ *
+ * 캐시는 커밋된 데이터만 담아야 한다. -> 항상 새 트랜잭션에서 읽는다. (현재 트랜잭션이 롤백될 수도 있으니까)
+ *
+ * TTL 이 없기 때문에 오래된 스냅샷이 한 번 올라가면 다음 팀 변경까지 계속 쓰인다.
+ * 팀 변경 전에 읽기 시작한 조회가 invalidate() 뒤에 끝날 수 있으므로 세대(generation)로 막는다.
+ * - invalidate() 는 세대를 올린다.
+ * - 스냅샷은 읽기 시작할 때의 세대를 들고 있고, 현재 세대와 같을 때만 쓴다.
+ */
+@Component
+public class TeamNameCache {
+
+    private final Supplier<Map<Long, String>> loader;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+    @Autowired
+    public TeamNameCache(EntityManager em, PlatformTransactionManager transactionManager) {
+        JPAQueryFactory query = new JPAQueryFactory(em);
+        TransactionTemplate newReadOnlyTransaction = new TransactionTemplate(transactionManager);
+        newReadOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        newReadOnlyTransaction.setReadOnly(true);
+
+        this.loader = () -> newReadOnlyTransaction.execute(status -> {
+            Map<Long, String> names = new HashMap<>();
+            for (Tuple row : query.select(team.id, team.name).from(team).fetch()) {
+                names.put(row.get(team.id), row.get(team.name));
+            }
+            return names;
+        });
+    }
+
+    // 테스트용: 팀 목록을 읽는 방법만 바꾼다.
+    TeamNameCache(Supplier<Map<Long, String>> loader) {
+        this.loader = loader;
+    }
+
+    public String getName(Long teamId) {
+        if (teamId == null) {
+            return null;
+        }
+        return snapshot().names.get(teamId);
+    }
+
+    // 팀 이름은 유니크가 아니다. 없으면 빈 리스트
+    public List<Long> getIds(String teamName) {
+        return snapshot().ids.getOrDefault(teamName, Collections.emptyList());
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        snapshot.set(null);
+    }
+
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        if (event.isFor(Team.class)) {
+            invalidate();
+        }
+    }
+
+    @EventListener
+    public void onBulkChange(BulkChangeEvent event) {
+        if (event.isFor(Team.class)) {
+            invalidate();
+        }
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot.get();
+        if (current != null && current.generation == generation.get()) {
+            return current;
+        }
+
+        // 세대를 먼저 읽고 DB 를 읽는다.
+        // 읽는 도중 팀 변경이 커밋되면 세대가 바뀌어 있으므로, 이 스냅샷은 올라가더라도 위에서 걸러진다.
+        long loadingGeneration = generation.get();
+        Snapshot loaded = new Snapshot(loadingGeneration, loader.get());
+        if (loadingGeneration == generation.get()) {
+            snapshot.compareAndSet(current, loaded);
+        }
+        return loaded; // 이번 호출은 방금 읽은 값을 쓴다. (읽기 시작한 시점에는 최신이었다.)
+    }
+
+    private static class Snapshot {
+
+        private final long generation;
+        private final Map<Long, String> names;
+        private final Map<String, List<Long>> ids = new HashMap<>();
+
+        Snapshot(long generation, Map<Long, String> names) {
+            this.generation = generation;
+            this.names = names;
+            names.forEach((teamId, teamName) -> ids.computeIfAbsent(teamName, key -> new ArrayList<>()).add(teamId));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package pipiolo.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import pipiolo.querydsl.diagnostics.IndexAdvisor;
+import pipiolo.querydsl.diagnostics.IndexRecommendation;
+import pipiolo.querydsl.diagnostics.SearchWorkload;
+import pipiolo.querydsl.diagnostics.SqlShapeStats;
+import pipiolo.querydsl.diagnostics.SqlStatistics;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+@RequestMapping("/diagnostics")
+@RestController
+public class DiagnosticsController {
+
+    private final SearchWorkload searchWorkload;
+    private final IndexAdvisor indexAdvisor;
+    private final SqlStatistics sqlStatistics;
+
+    // 검색 모양별 실행 횟수 (모양 개수 상한을 넘은 요청은 "(overflow)")
+    @GetMapping("/workload")
+    public Map<String, Long> workload() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        searchWorkload.snapshot().forEach((shape, count) -> result.put(shape.toString(), count));
+        if (searchWorkload.getOverflow() > 0) {
+            result.put("(overflow)", searchWorkload.getOverflow());
+        }
+        return result;
+    }
+
+    @GetMapping("/indexes")
+    public List<IndexRecommendation> indexes() {
+        return indexAdvisor.recommend();
+    }
+
+    // 실행한 DDL 목록 (querydsl.diagnostics.index-advisor.apply-enabled=true 일 때만, 꺼져 있으면 404)
+    @PostMapping("/indexes")
+    public List<String> applyIndexes() {
+        if (!indexAdvisor.isApplyEnabled()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                    "Index creation is disabled! (querydsl.diagnostics.index-advisor.apply-enabled)");
+        }
+        return indexAdvisor.apply();
+    }
+
+    // SQL 모양별 실행 횟수 / 시간 / row 수 / 호출 위치 (DB 시간을 많이 쓴 순)
+    @GetMapping("/sql")
+    public List<SqlShapeStats> sql() {
+        return sqlStatistics.snapshot();
+    }
+}
@@ -1,16 +1,39 @@
 package pipiolo.querydsl.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import pipiolo.querydsl.cache.MemberSearchResultCache;
+import pipiolo.querydsl.cache.SearchCoalescer;
+import pipiolo.querydsl.diagnostics.SearchWorkload;
+import pipiolo.querydsl.dto.CursorSlice;
+import pipiolo.querydsl.dto.MemberImportResult;
 import pipiolo.querydsl.dto.MemberSearchCond;
 import pipiolo.querydsl.dto.MemberTeamDto;
 import pipiolo.querydsl.repository.MemberJpaRepository;
 import pipiolo.querydsl.repository.MemberRepository;
+import pipiolo.querydsl.repository.PaginationStrategy;
+import pipiolo.querydsl.service.MemberImportService;
+import pipiolo.querydsl.snapshot.MemberSnapshotEngine;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RequiredArgsConstructor
@@ -20,29 +43,108 @@ public class MemberController {
 
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final MemberImportService memberImportService;
+    private final SearchWorkload searchWorkload;
+    private final SearchCoalescer searchCoalescer;
+    private final MemberSearchResultCache searchResultCache;
+    private final ObjectProvider<MemberSnapshotEngine> snapshotEngine; // querydsl.snapshot.enabled=true 일 때만 있다.
+    private final ObjectMapper objectMapper;
 
+    // Pageable 과 같은 최대 페이지 크기 (PageableHandlerMethodArgumentResolver 기본값 2000)
+    @Value("${spring.data.web.pageable.max-page-size:2000}")
+    private int maxPageSize;
+
+    // v1 ~ v5: 같은 조건 + 같은 페이지의 동시 요청은 DB 조회 한 번을 같이 쓴다. (SearchCoalescer)
+    // v1, v5 는 결과도 캐시한다. 캐시 미스일 때만 합치기 -> DB 조회 (MemberSearchResultCache)
     @GetMapping("/v1")
     public List<MemberTeamDto> searchMemberV1(MemberSearchCond condition) {
-        return memberJpaRepository.search(condition);
+        searchWorkload.record(condition);
+        return searchResultCache.get("v1", condition, null, operation ->
+                searchCoalescer.execute(operation, condition, null, () -> memberJpaRepository.search(condition)));
     }
 
     @GetMapping("/v2")
     public Page<MemberTeamDto> searchMemberV2(MemberSearchCond condition, Pageable pageable) {
-        return memberRepository.searchPageSimple(condition, pageable);
+        searchWorkload.record(condition, pageable.getSort());
+        return searchCoalescer.execute("v2", condition, pageable, () -> memberRepository.searchPageSimple(condition, pageable));
     }
 
     @GetMapping("/v3")
     public Page<MemberTeamDto> searchMemberV3(MemberSearchCond condition, Pageable pageable) {
-        return memberRepository.searchPageComplex(condition, pageable);
+        searchWorkload.record(condition, pageable.getSort());
+        return searchCoalescer.execute("v3", condition, pageable, () -> memberRepository.searchPageComplex(condition, pageable));
     }
 
     @GetMapping("/v4")
     public Page<MemberTeamDto> searchMemberV4(MemberSearchCond condition, Pageable pageable) {
-        return memberRepository.searchPageCount(condition, pageable);
+        searchWorkload.record(condition, pageable.getSort());
+        return searchCoalescer.execute("v4", condition, pageable, () -> memberRepository.searchPageCount(condition, pageable));
     }
 
+    // strategy=WINDOW_COUNT 이면 count(*) over() 로 한 번에 조회한다.
+    // strategy=DEFERRED_JOIN 이면 id 만 먼저 페이징한다.
+    // sort=age,desc 처럼 Member 필드 정렬은 세 방식 모두 똑같이 적용된다. 모르는 필드는 400 (MemberSort)
     @GetMapping("/v5")
-    public Page<MemberTeamDto> searchMemberV5(MemberSearchCond condition, Pageable pageable) {
-        return memberRepository.searchPageFinal(condition, pageable);
+    public Page<MemberTeamDto> searchMemberV5(MemberSearchCond condition, Pageable pageable,
+                                              @RequestParam(defaultValue = "TWO_QUERY") PaginationStrategy strategy) {
+        searchWorkload.record(condition, pageable.getSort());
+        return searchResultCache.get("v5:" + strategy, condition, pageable, operation ->
+                searchCoalescer.execute(operation, condition, pageable, () -> memberRepository.searchPage(condition, pageable, strategy)));
+    }
+
+    // 메모리 스냅샷에서 검색한다. -> DB 를 읽지 않는다. (결과는 member.id 순)
+    @GetMapping("/mem")
+    public Page<MemberTeamDto> searchMemberMem(MemberSearchCond condition, Pageable pageable) {
+        MemberSnapshotEngine engine = snapshotEngine.getIfAvailable();
+        if (engine == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Member snapshot is disabled! (querydsl.snapshot.enabled)");
+        }
+        return engine.searchPage(condition, pageable);
+    }
+
+    // 커서 페이징: 첫 페이지는 cursor 없이, 이후에는 응답의 nextCursor / prevCursor 를 그대로 넘긴다.
+    // size 는 Pageable 처럼 1 ~ maxPageSize 로 맞춘다. 잘못된 커서는 400 (InvalidCursorException)
+    @GetMapping("/v6")
+    public CursorSlice<MemberTeamDto> searchMemberV6(MemberSearchCond condition,
+                                                     @RequestParam(required = false) String cursor,
+                                                     @RequestParam(defaultValue = "20") int size) {
+        searchWorkload.record(condition, Sort.by("id")); // member.id 로 seek
+        return memberRepository.searchSlice(condition, cursor, Math.max(1, Math.min(size, maxPageSize)));
+    }
+
+    // 검색 결과 전체를 NDJSON(한 줄에 JSON 하나)으로 응답 스트림에 바로 쓴다.
+    // List 로 모으지 않기 때문에 결과가 아무리 커도 메모리는 일정하다.
+    // 클라이언트가 천천히 읽으면 소켓 write 가 블로킹되고, DB 커서도 그만큼 천천히 읽는다. (backpressure)
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public void exportMembers(MemberSearchCond condition, HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+
+        ObjectWriter writer = objectMapper.writerFor(MemberTeamDto.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET); // 한 건 쓸 때마다 스트림이 닫히면 안 된다.
+        OutputStream out = response.getOutputStream();
+
+        memberJpaRepository.searchStream(condition, memberTeamDto -> {
+            try {
+                writer.writeValue(out, memberTeamDto);
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // 클라이언트가 끊으면 여기서 중단 -> 커서도 닫힌다.
+            }
+        });
+        out.flush();
+    }
+
+    // 회원 파일 가져오기
+    // multipart 가 아니라 요청 본문을 그대로 읽는다. -> 파일 전체를 메모리나 임시 파일에 올리지 않는다.
+    // ex) curl -X POST -H "Content-Type: text/csv" --data-binary @members.csv localhost:8080/members/import
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public MemberImportResult importMembersCsv(HttpServletRequest request) throws IOException {
+        return memberImportService.importCsv(request.getInputStream());
+    }
+
+    @PostMapping(value = "/import", consumes = "application/x-ndjson")
+    public MemberImportResult importMembersNdjson(HttpServletRequest request) throws IOException {
+        return memberImportService.importNdjson(request.getInputStream());
     }
 }
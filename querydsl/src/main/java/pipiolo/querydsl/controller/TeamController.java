@@ -0,0 +1,36 @@
+package pipiolo.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import pipiolo.querydsl.dto.TeamRosterDto;
+import pipiolo.querydsl.dto.TeamStatsDto;
+import pipiolo.querydsl.repository.TeamQueryRepository;
+import pipiolo.querydsl.stats.TeamStatistics;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+@RequestMapping("/teams")
+@RestController
+public class TeamController {
+
+    private final TeamQueryRepository teamQueryRepository;
+    private final TeamStatistics teamStatistics;
+
+    // ex) /teams/roster?page=0&size=10&memberLimit=5
+    @GetMapping("/roster")
+    public Page<TeamRosterDto> roster(Pageable pageable, @RequestParam(required = false) Integer memberLimit) {
+        return teamQueryRepository.searchRoster(pageable, memberLimit);
+    }
+
+    // 팀별 회원 수 / 나이 합계 / 평균 / 최소 / 최대 -> DB 를 읽지 않는다.
+    @GetMapping("/stats")
+    public List<TeamStatsDto> stats() {
+        return teamStatistics.getStats();
+    }
+}
@@ -0,0 +1,220 @@
+package pipiolo.querydsl.diagnostics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 검색 워크로드 기반 인덱스 추천
+ *
+ * 모양별로 복합 인덱스 컬럼 순서를 정한다. (ESR: Equality -> Sort -> Range)
+ * - 같음(=) 조건 컬럼이 맨 앞
+ * - 정렬 컬럼은 범위 조건보다 앞에 있어야 인덱스 순서로 정렬을 대신할 수 있다.
+ * - 범위(age >= ? and age <= ?) 컬럼은 맨 뒤 -> 범위 뒤의 컬럼은 인덱스 탐색에 못 쓴다.
+ * 팀 이름 조건이 있으면 team.name 으로 팀을 찾고 member.team_id 로 조인한다.
+ * -> team(name) + member(team_id, ...)
+ *
+ * 다른 추천의 앞부분과 같은 추천은 합친다. 이미 같은 컬럼으로 시작하는 인덱스가 있으면 covered 로 표시한다.
+ * 인덱스 생성(apply)은 기본으로 꺼져 있다. -> querydsl.diagnostics.index-advisor.apply-enabled
+ */
+@Slf4j
+@Component
+public class IndexAdvisor {
+
+    private static final String MEMBER_TABLE = "member";
+    private static final String TEAM_TABLE = "team";
+
+    // 정렬 가능한 Member 필드 -> 컬럼
+    private static final Map<String, String> MEMBER_COLUMNS = Map.of(
+            "id", "member_id",
+            "memberId", "member_id",
+            "username", "username",
+            "age", "age");
+
+    private final SearchWorkload workload;
+    private final DataSource dataSource;
+    private final long minHits;
+    private final boolean applyEnabled;
+
+    public IndexAdvisor(SearchWorkload workload,
+                        DataSource dataSource,
+                        @Value("${querydsl.diagnostics.index-advisor.min-hits:10}") long minHits,
+                        @Value("${querydsl.diagnostics.index-advisor.apply-enabled:false}") boolean applyEnabled) {
+        this.workload = workload;
+        this.dataSource = dataSource;
+        this.minHits = minHits;
+        this.applyEnabled = applyEnabled;
+    }
+
+    public List<IndexRecommendation> recommend() {
+        Map<List<String>, IndexRecommendation> candidates = new LinkedHashMap<>();
+        workload.snapshot().forEach((shape, count) -> {
+            if (count < minHits) {
+                return;
+            }
+            for (IndexRecommendation index : indexesFor(shape)) {
+                List<String> key = new ArrayList<>(index.getColumns());
+                key.add(0, index.getTable());
+                candidates.computeIfAbsent(key, k -> index).add(shape.toString(), count);
+            }
+        });
+
+        List<IndexRecommendation> recommendations = mergePrefixes(new ArrayList<>(candidates.values()));
+        markExisting(recommendations);
+        recommendations.sort(Comparator.comparingLong(IndexRecommendation::getHits).reversed());
+        return recommendations;
+    }
+
+    public boolean isApplyEnabled() {
+        return applyEnabled;
+    }
+
+    // 아직 없는 추천 인덱스를 만든다.
+    public List<String> apply() {
+        if (!applyEnabled) {
+            throw new IllegalStateException("Index creation is disabled! (querydsl.diagnostics.index-advisor.apply-enabled)");
+        }
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        List<String> executed = new ArrayList<>();
+        for (IndexRecommendation recommendation : recommend()) {
+            if (recommendation.isCovered()) {
+                continue;
+            }
+            log.info("create index: {}", recommendation.getDdl());
+            jdbcTemplate.execute(recommendation.getDdl());
+            executed.add(recommendation.getDdl());
+        }
+        return executed;
+    }
+
+    private List<IndexRecommendation> indexesFor(SearchShape shape) {
+        List<String> columns = new ArrayList<>();
+        List<IndexRecommendation> indexes = new ArrayList<>();
+
+        // Equality
+        if (shape.isTeamName()) {
+            indexes.add(new IndexRecommendation(TEAM_TABLE, List.of("name")));
+            columns.add("team_id");
+        }
+        if (shape.isUsername()) {
+            columns.add("username");
+        }
+
+        // Sort -> 정렬할 수 없는 필드(SearchShape.OTHER)가 나오면 그 뒤의 정렬은 인덱스로 처리할 수 없다.
+        for (String property : shape.getSortProperties()) {
+            String column = MEMBER_COLUMNS.get(property);
+            if (column == null) {
+                break;
+            }
+            if (!columns.contains(column)) {
+                columns.add(column);
+            }
+        }
+
+        // Range
+        if (shape.isAgeRange() && !columns.contains("age")) {
+            columns.add("age");
+        }
+
+        // 조건도 정렬도 없거나, PK 순서만 필요한 경우 -> PK 인덱스로 충분하다.
+        if (!columns.isEmpty() && !columns.equals(List.of("member_id"))) {
+            indexes.add(new IndexRecommendation(MEMBER_TABLE, columns));
+        }
+        return indexes;
+    }
+
+    private List<IndexRecommendation> mergePrefixes(List<IndexRecommendation> candidates) {
+        // 컬럼이 많은 것부터 -> 짧은 추천은 긴 추천에 합쳐진다.
+        candidates.sort(Comparator.comparingInt((IndexRecommendation index) -> index.getColumns().size()).reversed());
+
+        List<IndexRecommendation> merged = new ArrayList<>();
+        for (IndexRecommendation candidate : candidates) {
+            IndexRecommendation target = merged.stream()
+                    .filter(candidate::isPrefixOf)
+                    .findFirst()
+                    .orElse(null);
+            if (target != null) {
+                target.merge(candidate);
+            } else {
+                merged.add(candidate);
+            }
+        }
+        return merged;
+    }
+
+    private void markExisting(List<IndexRecommendation> recommendations) {
+        if (recommendations.isEmpty()) {
+            return;
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            Map<String, Map<String, List<String>>> indexesByTable = new TreeMap<>();
+            for (IndexRecommendation recommendation : recommendations) {
+                Map<String, List<String>> existing = indexesByTable.get(recommendation.getTable());
+                if (existing == null) {
+                    existing = existingIndexes(metaData, recommendation.getTable());
+                    indexesByTable.put(recommendation.getTable(), existing);
+                }
+
+                existing.forEach((name, columns) -> {
+                    if (recommendation.isCovered()) {
+                        return;
+                    }
+                    if (columns.size() >= recommendation.getColumns().size()
+                            && columns.subList(0, recommendation.getColumns().size()).equals(recommendation.getColumns())) {
+                        recommendation.setExistingIndex(name);
+                    }
+                });
+            }
+        } catch (SQLException e) {
+            // 메타데이터를 못 읽어도 추천 자체는 보여준다.
+            log.warn("failed to read index metadata", e);
+        }
+    }
+
+    // 인덱스 이름 -> 컬럼 (인덱스 안의 순서대로)
+    private Map<String, List<String>> existingIndexes(DatabaseMetaData metaData, String table) throws SQLException {
+        Map<String, TreeMap<Short, String>> indexes = new LinkedHashMap<>();
+        try (ResultSet rs = metaData.getIndexInfo(null, null, tableName(metaData, table), false, true)) {
+            while (rs.next()) {
+                String indexName = rs.getString("INDEX_NAME");
+                String columnName = rs.getString("COLUMN_NAME");
+                if (indexName == null || columnName == null) {
+                    continue; // 테이블 통계 row
+                }
+                indexes.computeIfAbsent(indexName, name -> new TreeMap<>())
+                        .put(rs.getShort("ORDINAL_POSITION"), columnName.toLowerCase(Locale.ROOT));
+            }
+        }
+
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        indexes.forEach((name, columns) -> result.put(name, new ArrayList<>(columns.values())));
+        return result;
+    }
+
+    private String tableName(DatabaseMetaData metaData, String table) throws SQLException {
+        if (metaData.storesUpperCaseIdentifiers()) {
+            return table.toUpperCase(Locale.ROOT);
+        }
+        if (metaData.storesLowerCaseIdentifiers()) {
+            return table.toLowerCase(Locale.ROOT);
+        }
+        return table;
+    }
+}
@@ -0,0 +1,63 @@
+package pipiolo.querydsl.diagnostics;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 추천 인덱스 하나
+ * 같은 인덱스로 처리할 수 있는 모양들과 그 실행 횟수를 함께 보여준다.
+ */
+@Getter
+public class IndexRecommendation {
+
+    private final String table;
+    private final List<String> columns;
+    private final List<String> shapes = new ArrayList<>();
+    private long hits;
+    private String existingIndex; // 이미 이 컬럼들로 시작하는 인덱스가 있으면 그 이름
+
+    public IndexRecommendation(String table, List<String> columns) {
+        this.table = table;
+        this.columns = columns;
+    }
+
+    public String getName() {
+        return "idx_" + table + "_" + String.join("_", columns);
+    }
+
+    // 엔티티에 직접 선언할 때 -> @Table(indexes = @Index(name = ..., columnList = ...))
+    public String getColumnList() {
+        return String.join(", ", columns);
+    }
+
+    public String getDdl() {
+        return "create index " + getName() + " on " + table + " (" + getColumnList() + ")";
+    }
+
+    public boolean isCovered() {
+        return existingIndex != null;
+    }
+
+    void add(String shape, long count) {
+        shapes.add(shape);
+        hits += count;
+    }
+
+    void merge(IndexRecommendation other) {
+        shapes.addAll(other.shapes);
+        hits += other.hits;
+    }
+
+    void setExistingIndex(String existingIndex) {
+        this.existingIndex = existingIndex;
+    }
+
+    // (username) 은 (username, age) 인덱스로 처리할 수 있다.
+    boolean isPrefixOf(IndexRecommendation other) {
+        return table.equals(other.table)
+                && columns.size() <= other.columns.size()
+                && columns.equals(other.columns.subList(0, columns.size()));
+    }
+}
@@ -0,0 +1,11 @@
+package pipiolo.querydsl.diagnostics;
+
+/**
+ * 같은 모양의 id 단건 조회가 임계값을 넘었다. (querydsl.diagnostics.n-plus-one.mode=THROW)
+ */
+public class NPlusOneException extends IllegalStateException {
+
+    public NPlusOneException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,62 @@
+package pipiolo.querydsl.diagnostics;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.regex.Pattern;
+
+/**
+ * N+1 감지
+ *
+ * LAZY 연관관계(Member.team)를 row 마다 초기화하면 "... where team0_.team_id=?" 가 row 수만큼 나간다.
+ * 요청 / 트랜잭션(QueryContext) 안에서 같은 모양의 id 단건 조회가 threshold 번을 넘으면
+ * - LOG: 경고 로그 (기본)
+ * - THROW: NPlusOneException -> 테스트에서 바로 실패한다.
+ */
+@Slf4j
+@Component
+public class NPlusOneGuard extends SimpleJdbcEventListener {
+
+    // select ... where xxx.team_id=? (id 하나로 조회) -> in (?) 배치 조회나 조건 검색은 해당 안 됨
+    private static final Pattern SELECT_BY_ID = Pattern.compile("^select .* where [\\w.]+_id ?= ?\\?$");
+
+    public enum Mode {
+        LOG, THROW
+    }
+
+    private final SqlStatistics sqlStatistics;
+    private final int threshold;
+    private final Mode mode;
+
+    public NPlusOneGuard(SqlStatistics sqlStatistics,
+                         @Value("${querydsl.diagnostics.n-plus-one.threshold:10}") int threshold,
+                         @Value("${querydsl.diagnostics.n-plus-one.mode:LOG}") Mode mode) {
+        this.sqlStatistics = sqlStatistics;
+        this.threshold = threshold;
+        this.mode = mode;
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        QueryContext context = QueryContext.current();
+        if (context == null) {
+            return;
+        }
+
+        String shape = sqlStatistics.shapeOf(statementInformation.getSql());
+        int count = context.record(shape, timeElapsedNanos, SELECT_BY_ID.matcher(shape).matches());
+        if (count <= threshold || !context.markReported(shape)) {
+            return;
+        }
+
+        String message = "N+1 query detected. (" + count + " times) " + shape;
+        if (mode == Mode.THROW) {
+            throw new NPlusOneException(message);
+        }
+        log.warn(message);
+    }
+}
@@ -0,0 +1,88 @@
+package pipiolo.querydsl.diagnostics;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 요청 / 트랜잭션 하나 동안 실행된 SQL 집계
+ *
+ * - HTTP 요청: QueryCountFilter 가 open() / close() 한다.
+ * - 요청 밖(테스트, 배치 등): 트랜잭션 리소스로 바인딩되고 트랜잭션이 끝나면 사라진다.
+ * 스레드 하나에서만 쓰이므로 동기화하지 않는다. (다른 스레드에서 실행된 SQL 은 집계되지 않는다.)
+ */
+public class QueryContext {
+
+    private static final ThreadLocal<QueryContext> REQUEST = new ThreadLocal<>();
+
+    private int statements;
+    private long dbTimeNanos;
+    private final Map<String, Integer> selectsById = new HashMap<>();
+    private final Set<String> reported = new HashSet<>();
+
+    public static QueryContext open() {
+        QueryContext context = new QueryContext();
+        REQUEST.set(context);
+        return context;
+    }
+
+    public static void close() {
+        REQUEST.remove();
+    }
+
+    // 지금 요청의 컨텍스트 (요청 밖이면 null)
+    public static QueryContext currentRequest() {
+        return REQUEST.get();
+    }
+
+    // 요청 -> 트랜잭션 순으로 찾는다. 둘 다 없으면 null
+    static QueryContext current() {
+        QueryContext context = REQUEST.get();
+        if (context != null) {
+            return context;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+
+        context = (QueryContext) TransactionSynchronizationManager.getResource(QueryContext.class);
+        if (context == null) {
+            context = new QueryContext();
+            TransactionSynchronizationManager.bindResource(QueryContext.class, context);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(QueryContext.class);
+                }
+            });
+        }
+        return context;
+    }
+
+    // 같은 모양의 id 단건 조회가 몇 번째인지 반환한다. (id 단건 조회가 아니면 0)
+    int record(String shape, long elapsedNanos, boolean selectById) {
+        statements++;
+        dbTimeNanos += elapsedNanos;
+        if (!selectById) {
+            return 0;
+        }
+        return selectsById.merge(shape, 1, Integer::sum);
+    }
+
+    // 모양마다 한 번만 알린다.
+    boolean markReported(String shape) {
+        return reported.add(shape);
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getDbTimeMillis() {
+        return dbTimeNanos / 1_000_000;
+    }
+}
@@ -0,0 +1,29 @@
+package pipiolo.querydsl.diagnostics;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 요청마다 QueryContext 를 연다.
+ * 응답 헤더는 본문을 쓰기 직전에 QueryCountResponseAdvice 가 붙인다. (필터가 끝날 때는 이미 응답이 커밋된 뒤다.)
+ */
+@Component
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryContext.open();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            QueryContext.close();
+        }
+    }
+}
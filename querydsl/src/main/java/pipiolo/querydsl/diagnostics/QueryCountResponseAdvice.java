@@ -0,0 +1,36 @@
+package pipiolo.querydsl.diagnostics;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * 응답 헤더에 이번 요청의 SQL 실행 횟수와 DB 시간을 붙인다.
+ * - X-Query-Count
+ * - X-DB-Time-Ms
+ * HttpServletResponse 에 직접 쓰는 응답(/members/export 등)에는 붙지 않는다.
+ */
+@ControllerAdvice
+public class QueryCountResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        QueryContext context = QueryContext.currentRequest();
+        if (context != null) {
+            response.getHeaders().set("X-Query-Count", String.valueOf(context.getStatements()));
+            response.getHeaders().set("X-DB-Time-Ms", String.valueOf(context.getDbTimeMillis()));
+        }
+        return body;
+    }
+}
@@ -0,0 +1,80 @@
+package pipiolo.querydsl.diagnostics;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.data.domain.Sort;
+import pipiolo.querydsl.dto.MemberSearchCond;
+import pipiolo.querydsl.repository.MemberSort;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * 검색 요청의 모양 = 어떤 조건이 들어왔는지 + 어떤 순서로 정렬했는지
+ * 조건의 값은 버린다. 인덱스를 고르는 데는 모양만 필요하다.
+ *
+ * sort 는 클라이언트가 아무 문자열이나 보낼 수 있다. -> 모양의 개수가 끝없이 늘지 않도록
+ * 정렬할 수 있는 Member 필드(MemberSort)만 남기고 나머지는 OTHER 하나로 묶는다. 정렬 개수도 MAX_SORT_ORDERS 까지만.
+ */
+@Getter
+@EqualsAndHashCode
+public class SearchShape {
+
+    public static final String OTHER = "(other)";
+    public static final int MAX_SORT_ORDERS = 3;
+
+    private final boolean username;
+    private final boolean teamName;
+    private final boolean ageRange;
+    private final List<String> sort; // ex) "age DESC", OTHER
+
+    private SearchShape(boolean username, boolean teamName, boolean ageRange, List<String> sort) {
+        this.username = username;
+        this.teamName = teamName;
+        this.ageRange = ageRange;
+        this.sort = sort;
+    }
+
+    public static SearchShape of(MemberSearchCond condition, Sort sort) {
+        List<String> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            if (orders.size() == MAX_SORT_ORDERS || !MemberSort.isSortable(order.getProperty())) {
+                orders.add(OTHER); // 여기부터는 인덱스로 처리할 수 없는 정렬 -> 뒤는 볼 필요 없다.
+                break;
+            }
+            orders.add(order.getProperty() + " " + order.getDirection());
+        }
+        return new SearchShape(
+                hasText(condition.getUsername()),
+                hasText(condition.getTeamName()),
+                condition.getAgeGoe() != null || condition.getAgeLoe() != null,
+                Collections.unmodifiableList(orders));
+    }
+
+    public List<String> getSortProperties() {
+        List<String> properties = new ArrayList<>(sort.size());
+        for (String order : sort) {
+            properties.add(order.equals(OTHER) ? OTHER : order.substring(0, order.indexOf(' ')));
+        }
+        return properties;
+    }
+
+    @Override
+    public String toString() {
+        List<String> predicates = new ArrayList<>();
+        if (username) {
+            predicates.add("username = ?");
+        }
+        if (teamName) {
+            predicates.add("team.name = ?");
+        }
+        if (ageRange) {
+            predicates.add("age between");
+        }
+        String where = predicates.isEmpty() ? "(none)" : String.join(" and ", predicates);
+        return sort.isEmpty() ? where : where + " order by " + String.join(", ", sort);
+    }
+}
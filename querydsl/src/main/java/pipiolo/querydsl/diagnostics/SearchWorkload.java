@@ -0,0 +1,68 @@
+package pipiolo.querydsl.diagnostics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import pipiolo.querydsl.dto.MemberSearchCond;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 실제로 들어온 검색 요청의 모양(SearchShape)별 횟수
+ * IndexAdvisor 가 이 통계를 보고 인덱스를 추천한다.
+ *
+ * 모양은 (조건 조합 16개) x (화이트리스트 정렬 조합) 으로 작다. (SearchShape 참고)
+ * 그래도 맵이 끝없이 크지 않도록 모양 개수에 상한(max-shapes)을 둔다.
+ * 상한을 넘은 새 모양은 따로 만들지 않고 overflow 로만 센다. (이미 있는 모양은 계속 센다.)
+ */
+@Component
+public class SearchWorkload {
+
+    private final int maxShapes;
+    private final Map<SearchShape, LongAdder> counts = new ConcurrentHashMap<>();
+    private final LongAdder overflow = new LongAdder();
+
+    public SearchWorkload(@Value("${querydsl.diagnostics.workload.max-shapes:1000}") int maxShapes) {
+        this.maxShapes = maxShapes;
+    }
+
+    public void record(MemberSearchCond condition) {
+        record(condition, Sort.unsorted());
+    }
+
+    public void record(MemberSearchCond condition, Sort sort) {
+        SearchShape shape = SearchShape.of(condition, sort);
+        LongAdder count = counts.get(shape);
+        if (count == null) {
+            // size() 검사와 추가 사이에 몇 개 더 들어갈 수 있지만, 동시 요청 수 이상으로 넘지는 않는다.
+            if (counts.size() >= maxShapes) {
+                overflow.increment();
+                return;
+            }
+            count = counts.computeIfAbsent(shape, key -> new LongAdder());
+        }
+        count.increment();
+    }
+
+    // 많이 실행된 모양부터
+    public Map<SearchShape, Long> snapshot() {
+        Map<SearchShape, Long> snapshot = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()))
+                .forEach(entry -> snapshot.put(entry.getKey(), entry.getValue().sum()));
+        return snapshot;
+    }
+
+    // 상한 때문에 모양별로 세지 못한 요청 수
+    public long getOverflow() {
+        return overflow.sum();
+    }
+
+    public void clear() {
+        counts.clear();
+        overflow.reset();
+    }
+}
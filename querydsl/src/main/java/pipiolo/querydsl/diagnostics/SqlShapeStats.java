@@ -0,0 +1,91 @@
+package pipiolo.querydsl.diagnostics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SQL 모양 하나의 누적 통계
+ * 실행 횟수 / 시간 / 백분위수는 Micrometer Timer 가 가지고 있고, 여기는 그 외의 값만 모은다.
+ */
+public class SqlShapeStats {
+
+    // 호출 위치가 계속 새로 나오더라도 이 이상은 모으지 않는다.
+    private static final int MAX_ORIGINS = 16;
+
+    private final String id;
+    private final String sql;
+    private final Timer timer;
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final Set<String> origins = ConcurrentHashMap.newKeySet();
+
+    SqlShapeStats(String id, String sql, Timer timer) {
+        this.id = id;
+        this.sql = sql;
+        this.timer = timer;
+    }
+
+    void recordExecution(long elapsedNanos, boolean failed, String origin) {
+        timer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (failed) {
+            errors.increment();
+        }
+        if (origin != null && origins.size() < MAX_ORIGINS) {
+            origins.add(origin);
+        }
+    }
+
+    void recordRow() {
+        rows.increment();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public long getCount() {
+        return timer.count();
+    }
+
+    public double getTotalMillis() {
+        return timer.totalTime(TimeUnit.MILLISECONDS);
+    }
+
+    public double getP50Millis() {
+        return percentile(0.5);
+    }
+
+    public double getP99Millis() {
+        return percentile(0.99);
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public Set<String> getOrigins() {
+        return origins;
+    }
+
+    private double percentile(double percentile) {
+        for (ValueAtPercentile value : timer.takeSnapshot().percentileValues()) {
+            if (value.percentile() == percentile) {
+                return value.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        return Double.NaN;
+    }
+}
@@ -0,0 +1,44 @@
+package pipiolo.querydsl.diagnostics;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * SQL 문장 -> 모양(shape)
+ * 값만 다른 문장은 같은 모양이다. ex) where m.age >= 20 / where m.age >= 30 -> where m.age >= ?
+ *
+ * - 주석 제거 (use_sql_comments 의 JPQL 주석 등)
+ * - 문자열 / 숫자 리터럴 -> ?
+ * - in (?, ?, ?) -> in (?) : in 절 크기마다 다른 모양이 되지 않게
+ * - 공백 정리 + 소문자
+ */
+public final class SqlShapes {
+
+    private static final Pattern BLOCK_COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern LINE_COMMENT = Pattern.compile("--[^\\n]*");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.$])-?\\d+(?:\\.\\d+)?(?![\\w$])");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private SqlShapes() {
+    }
+
+    public static String normalize(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        String shape = BLOCK_COMMENT.matcher(sql).replaceAll(" ");
+        shape = LINE_COMMENT.matcher(shape).replaceAll(" ");
+        shape = STRING_LITERAL.matcher(shape).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("(?)");
+        shape = WHITESPACE.matcher(shape).replaceAll(" ");
+        return shape.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // 메트릭 태그로 쓰기 위한 짧은 id (SQL 전체를 태그 값으로 쓰지 않는다.)
+    public static String idOf(String shape) {
+        return String.format("sql-%08x", shape.hashCode());
+    }
+}
@@ -0,0 +1,134 @@
+package pipiolo.querydsl.diagnostics;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SQL 모양별 실행 통계
+ *
+ * p6spy-spring-boot-starter 는 JdbcEventListener 빈을 찾아서 등록한다. -> 모든 JDBC 실행이 여기를 지나간다.
+ * - onAfterAnyExecute: 실행 시간 (executeQuery / executeUpdate / executeBatch 모두)
+ * - onAfterResultSetNext: 읽은 row 수
+ * - 호출한 애플리케이션 코드(레포지토리 메서드)는 StackWalker 로 찾는다.
+ *
+ * 메트릭: sql.statement (Timer, p50 / p99), sql.statement.rows (태그 shape = SqlShapes.idOf())
+ */
+@Component
+public class SqlStatistics extends SimpleJdbcEventListener {
+
+    private static final String APPLICATION_PACKAGE = "pipiolo.querydsl.";
+    private static final String DIAGNOSTICS_PACKAGE = "pipiolo.querydsl.diagnostics.";
+    private static final String OTHER_SHAPE = "(other)";
+
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+    private final MeterRegistry registry;
+    private final boolean captureOrigin;
+    private final int maxShapes;
+
+    // 같은 SQL 문자열을 매번 정규식으로 정규화하지 않는다. (PreparedStatement 의 SQL 은 종류가 많지 않다.)
+    private final Cache<String, String> shapes = Caffeine.newBuilder()
+            .maximumSize(1_000)
+            .build();
+    private final Map<String, SqlShapeStats> stats = new ConcurrentHashMap<>();
+
+    public SqlStatistics(MeterRegistry registry,
+                         @Value("${querydsl.diagnostics.sql.capture-origin:true}") boolean captureOrigin,
+                         @Value("${querydsl.diagnostics.sql.max-shapes:500}") int maxShapes) {
+        this.registry = registry;
+        this.captureOrigin = captureOrigin;
+        this.maxShapes = maxShapes;
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        statsOf(statementInformation).recordExecution(timeElapsedNanos, e != null, captureOrigin ? origin() : null);
+    }
+
+    @Override
+    public void onAfterResultSetNext(ResultSetInformation resultSetInformation, long timeElapsedNanos, boolean hasNext, SQLException e) {
+        if (hasNext) {
+            statsOf(resultSetInformation.getStatementInformation()).recordRow();
+        }
+    }
+
+    // DB 시간을 많이 쓴 모양부터
+    public List<SqlShapeStats> snapshot() {
+        List<SqlShapeStats> snapshot = new ArrayList<>(stats.values());
+        snapshot.sort(Comparator.comparingDouble(SqlShapeStats::getTotalMillis).reversed());
+        return snapshot;
+    }
+
+    public String shapeOf(String sql) {
+        return sql == null ? OTHER_SHAPE : shapes.get(sql, SqlShapes::normalize);
+    }
+
+    private SqlShapeStats statsOf(StatementInformation statementInformation) {
+        String shape = shapeOf(statementInformation.getSql());
+
+        SqlShapeStats shapeStats = stats.get(shape);
+        if (shapeStats != null) {
+            return shapeStats;
+        }
+        // 리터럴이 박힌 SQL 이 계속 들어오면 모양이 끝없이 늘어난다. -> 상한을 넘으면 하나로 모은다.
+        if (stats.size() >= maxShapes) {
+            shape = OTHER_SHAPE;
+        }
+        return stats.computeIfAbsent(shape, this::register);
+    }
+
+    private SqlShapeStats register(String shape) {
+        String id = SqlShapes.idOf(shape);
+        Timer timer = Timer.builder("sql.statement")
+                .description("SQL 모양별 실행 시간")
+                .tag("shape", id)
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        SqlShapeStats shapeStats = new SqlShapeStats(id, shape, timer);
+        FunctionCounter.builder("sql.statement.rows", shapeStats, SqlShapeStats::getRows)
+                .description("SQL 모양별 읽은 row 수")
+                .tag("shape", id)
+                .register(registry);
+        return shapeStats;
+    }
+
+    // JDBC -> 하이버네이트 -> Querydsl -> ... -> 레포지토리 순으로 올라가며 처음 만나는 애플리케이션 코드
+    // 스프링 프록시(CGLIB $$) 는 건너뛰고, 람다는 감싸고 있는 메서드 이름으로 보여준다.
+    private String origin() {
+        return STACK_WALKER.walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(APPLICATION_PACKAGE)
+                        && !frame.getClassName().startsWith(DIAGNOSTICS_PACKAGE)
+                        && !frame.getClassName().contains("$$"))
+                .findFirst()
+                .map(frame -> simpleName(frame.getClassName()) + "." + methodName(frame.getMethodName()))
+                .orElse(null));
+    }
+
+    private static String simpleName(String className) {
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+
+    // lambda$searchPageFinal$3 -> searchPageFinal
+    private static String methodName(String methodName) {
+        if (methodName.startsWith("lambda$")) {
+            int end = methodName.indexOf('$', "lambda$".length());
+            return methodName.substring("lambda$".length(), end < 0 ? methodName.length() : end);
+        }
+        return methodName;
+    }
+}
@@ -0,0 +1,22 @@
+package pipiolo.querydsl.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Getter
+@ToString
+public class BulkChangeResult {
+
+    private final long count;
+    private final long elapsedMillis;
+    private final List<BulkChunkResult> chunks;
+
+    public BulkChangeResult(List<BulkChunkResult> chunks, long elapsedNanos) {
+        this.count = chunks.stream().mapToLong(BulkChunkResult::getCount).sum();
+        this.elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        this.chunks = chunks;
+    }
+}
@@ -0,0 +1,24 @@
+package pipiolo.querydsl.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.concurrent.TimeUnit;
+
+// 벌크 연산 청크 하나 (트랜잭션 하나)
+@Getter
+@ToString
+public class BulkChunkResult {
+
+    private final long fromId;
+    private final long toId;
+    private final long count;
+    private final long elapsedMillis;
+
+    public BulkChunkResult(long fromId, long toId, long count, long elapsedNanos) {
+        this.fromId = fromId;
+        this.toId = toId;
+        this.count = count;
+        this.elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+}
@@ -0,0 +1,21 @@
+package pipiolo.querydsl.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.concurrent.TimeUnit;
+
+@Getter
+@ToString
+public class BulkInsertResult {
+
+    private final long count;
+    private final long elapsedMillis;
+    private final long rowsPerSecond;
+
+    public BulkInsertResult(long count, long elapsedNanos) {
+        this.count = count;
+        this.elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        this.rowsPerSecond = elapsedNanos == 0 ? count : count * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+}
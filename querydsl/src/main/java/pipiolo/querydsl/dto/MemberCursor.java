@@ -0,0 +1,61 @@
+package pipiolo.querydsl.dto;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * searchSlice 에서 사용하는 커서
+ * 클라이언트에게는 Base64 문자열로만 노출한다. (구현을 바꿔도 API 는 그대로)
+ * 형식: "{방향}:{member.id}" ex) "n:120" -> id 120 다음, "p:101" -> id 101 이전
+ */
+@Getter
+public class MemberCursor {
+
+    private static final String NEXT = "n";
+    private static final String PREV = "p";
+
+    private final Long memberId;
+    private final boolean next;
+
+    private MemberCursor(Long memberId, boolean next) {
+        this.memberId = memberId;
+        this.next = next;
+    }
+
+    public static MemberCursor next(Long memberId) {
+        return new MemberCursor(memberId, true);
+    }
+
+    public static MemberCursor prev(Long memberId) {
+        return new MemberCursor(memberId, false);
+    }
+
+    public String encode() {
+        String raw = (next ? NEXT : PREV) + ":" + memberId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // 커서가 없으면 첫 페이지, 형식이 맞지 않으면 InvalidCursorException (400)
+    public static MemberCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 2);
+            Long memberId = Long.valueOf(parts[1]); // 숫자가 아니면 NumberFormatException (IllegalArgumentException)
+            if (NEXT.equals(parts[0])) {
+                return next(memberId);
+            }
+            if (PREV.equals(parts[0])) {
+                return prev(memberId);
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            // 아래에서 한번에 처리
+        }
+        throw new InvalidCursorException("잘못된 커서 입니다. cursor = " + cursor);
+    }
+}
@@ -0,0 +1,21 @@
+package pipiolo.querydsl.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class MemberImportResult {
+
+    private final long imported;
+    private final long failed;
+    private final long createdTeams;
+    private final long elapsedMillis;
+
+    public MemberImportResult(long imported, long failed, long createdTeams, long elapsedMillis) {
+        this.imported = imported;
+        this.failed = failed;
+        this.createdTeams = createdTeams;
+        this.elapsedMillis = elapsedMillis;
+    }
+}
@@ -0,0 +1,15 @@
+package pipiolo.querydsl.dto;
+
+import lombok.Data;
+
+/**
+ * 회원 가져오기 한 줄
+ * CSV: username,age,teamName / NDJSON: {"username": "member1", "age": 10, "teamName": "teamA"}
+ */
+@Data
+public class MemberImportRow {
+
+    private String username;
+    private Integer age;
+    private String teamName; // 없으면 팀 없는 회원
+}
@@ -1,8 +1,9 @@
 package pipiolo.querydsl.dto;
 
-
 import lombok.Data;
 
+import static org.springframework.util.StringUtils.hasText;
+
 @Data
 public class MemberSearchCond {
 
@@ -10,4 +11,15 @@ public class MemberSearchCond {
     private String teamName;
     private Integer ageGoe;
     private Integer ageLoe;
+
+    // "" 와 null 은 같은 조건이다. (usernameEq() 등에서 hasText() 로 거른다)
+    // 캐시 키처럼 equals() 로 비교해야 할 때 사용한다.
+    public MemberSearchCond normalized() {
+        MemberSearchCond condition = new MemberSearchCond();
+        condition.setUsername(hasText(username) ? username : null);
+        condition.setTeamName(hasText(teamName) ? teamName : null);
+        condition.setAgeGoe(ageGoe);
+        condition.setAgeLoe(ageLoe);
+        return condition;
+    }
 }
@@ -0,0 +1,20 @@
+package pipiolo.querydsl.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class TeamRosterDto {
+
+    private Long teamId;
+    private String teamName;
+    private long memberCount;  // 팀 전체 회원 수 (members 는 memberLimit 만큼만 들어있을 수 있다.)
+    private List<MemberDto> members = new ArrayList<>();
+
+    public TeamRosterDto(Long teamId, String teamName) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+    }
+}
@@ -0,0 +1,26 @@
+package pipiolo.querydsl.dto;
+
+import lombok.Data;
+
+// QuerydslBasicTest.aggregation / group 과 같은 값 (count, sum, avg, max, min of member.age)
+@Data
+public class TeamStatsDto {
+
+    private Long teamId;
+    private String teamName;
+    private long count;
+    private long ageSum;
+    private double ageAvg;
+    private int ageMin;
+    private int ageMax;
+
+    public TeamStatsDto(Long teamId, String teamName, long count, long ageSum, int ageMin, int ageMax) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.count = count;
+        this.ageSum = ageSum;
+        this.ageAvg = count == 0 ? 0 : (double) ageSum / count;
+        this.ageMin = ageMin;
+        this.ageMax = ageMax;
+    }
+}
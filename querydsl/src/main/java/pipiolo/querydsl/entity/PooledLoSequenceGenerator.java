@@ -0,0 +1,36 @@
+package pipiolo.querydsl.entity;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * 시퀀스를 한 번 호출할 때 id 를 블록 단위로 받아오는 생성기 (pooled-lo)
+ *
+ * @GeneratedValue 기본값은 insert 마다 시퀀스를 호출한다. (call next value for ... 가 insert 수만큼 나감)
+ * pooled-lo 는 시퀀스 값 하나로 [값, 값 + 블록 크기) 의 id 를 메모리에서 나눠준다.
+ * 블록 크기는 애노테이션이 아니라 설정으로 바꿀 수 있게 했다.
+ *
+ * spring.jpa.properties.querydsl.id.block-size: 50 (시퀀스 increment 도 같은 값으로 만들어진다)
+ */
+public class PooledLoSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String BLOCK_SIZE_SETTING = "querydsl.id.block-size";
+    public static final int DEFAULT_BLOCK_SIZE = 50;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        Object blockSize = serviceRegistry.getService(ConfigurationService.class)
+                .getSettings()
+                .getOrDefault(BLOCK_SIZE_SETTING, DEFAULT_BLOCK_SIZE);
+
+        params.setProperty(INCREMENT_PARAM, blockSize.toString());
+        params.setProperty(OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+        super.configure(type, params, serviceRegistry);
+    }
+}
@@ -0,0 +1,28 @@
+package pipiolo.querydsl.event;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 커밋된 벌크 연산(JPQL update / delete) 이벤트
+ * 벌크 연산은 영속성 컨텍스트와 하이버네이트 이벤트를 거치지 않는다. -> EntityChangeEvent 가 발행되지 않는다.
+ * 대신 바뀐 엔티티의 id 만 알려준다. (변경 전후 값은 없다. 필요하면 다시 조회해야 한다.)
+ */
+@Getter
+public class BulkChangeEvent {
+
+    private final EntityChangeEvent.Type type; // UPDATE, DELETE
+    private final Class<?> entityType;
+    private final List<Long> ids;
+
+    public BulkChangeEvent(EntityChangeEvent.Type type, Class<?> entityType, List<Long> ids) {
+        this.type = type;
+        this.entityType = entityType;
+        this.ids = ids;
+    }
+
+    public boolean isFor(Class<?> type) {
+        return type.isAssignableFrom(entityType);
+    }
+}
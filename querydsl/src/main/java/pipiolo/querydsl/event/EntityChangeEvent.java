@@ -0,0 +1,57 @@
+package pipiolo.querydsl.event;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * 커밋된 엔티티 변경 이벤트
+ * 하이버네이트 이벤트를 스프링 이벤트로 바꿔서 발행한다. -> 캐시 등은 @EventListener 로 받으면 된다.
+ * 트랜잭션이 롤백되면 발행되지 않는다.
+ */
+@Getter
+public class EntityChangeEvent {
+
+    public enum Type {
+        INSERT, UPDATE, DELETE
+    }
+
+    private final Type type;
+    private final Class<?> entityType;
+    private final Object id;
+    private final Object entity;
+    private final String[] propertyNames;
+    private final Object[] state;    // 변경 후 값, DELETE 는 null
+    private final Object[] oldState; // 변경 전 값, INSERT 는 null (merge 된 UPDATE 도 null 일 수 있다)
+
+    public EntityChangeEvent(Type type, Class<?> entityType, Object id, Object entity,
+                             String[] propertyNames, Object[] state, Object[] oldState) {
+        this.type = type;
+        this.entityType = entityType;
+        this.id = id;
+        this.entity = entity;
+        this.propertyNames = propertyNames;
+        this.state = state;
+        this.oldState = oldState;
+    }
+
+    public boolean isFor(Class<?> type) {
+        return type.isAssignableFrom(entityType);
+    }
+
+    public Object getValue(String propertyName) {
+        return valueOf(state, propertyName);
+    }
+
+    public Object getOldValue(String propertyName) {
+        return valueOf(oldState, propertyName);
+    }
+
+    private Object valueOf(Object[] values, String propertyName) {
+        if (values == null) {
+            return null;
+        }
+        int index = Arrays.asList(propertyNames).indexOf(propertyName);
+        return index < 0 ? null : values[index];
+    }
+}
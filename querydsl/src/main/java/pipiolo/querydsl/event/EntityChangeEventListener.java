@@ -0,0 +1,73 @@
+package pipiolo.querydsl.event;
+
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * 커밋이 끝난 INSERT / UPDATE / DELETE 를 EntityChangeEvent 로 발행한다.
+ *
+ * 주의! JPQL 벌크 연산(execute())은 영속성 컨텍스트를 거치지 않기 때문에 이벤트가 발생하지 않는다.
+ */
+public class EntityChangeEventListener implements
+        PostCommitInsertEventListener,
+        PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    private final transient ApplicationEventPublisher publisher;
+
+    public EntityChangeEventListener(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        publish(EntityChangeEvent.Type.INSERT, event.getPersister(), event.getId(), event.getEntity(),
+                event.getState(), null);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        publish(EntityChangeEvent.Type.UPDATE, event.getPersister(), event.getId(), event.getEntity(),
+                event.getState(), event.getOldState());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        publish(EntityChangeEvent.Type.DELETE, event.getPersister(), event.getId(), event.getEntity(),
+                null, event.getDeletedState());
+    }
+
+    // 롤백된 변경은 알릴 필요 없다.
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    // 하이버네이트 버전에 따라 오타난 이름(Handing)과 고쳐진 이름(Handling)이 있어서 둘 다 둔다.
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return true;
+    }
+
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return true;
+    }
+
+    private void publish(EntityChangeEvent.Type type, EntityPersister persister, Object id, Object entity,
+                         Object[] state, Object[] oldState) {
+        publisher.publishEvent(new EntityChangeEvent(
+                type, persister.getMappedClass(), id, entity, persister.getPropertyNames(), state, oldState));
+    }
+}
@@ -0,0 +1,53 @@
+package pipiolo.querydsl.projection;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.Visitor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * FastProjections.bean / fields 의 결과
+ * QBean 과 같은 역할이지만 캐시된 BeanAccessor 로 값을 넣는다.
+ */
+class FastBean<T> extends FactoryExpressionBase<T> {
+
+    private final FastProjections.BeanAccessor<T> accessor;
+    private final List<Expression<?>> args;
+
+    FastBean(Class<? extends T> type, FastProjections.BeanAccessor<T> accessor, Expression<?>... args) {
+        super(type);
+        this.accessor = accessor;
+        this.args = Collections.unmodifiableList(Arrays.asList(args));
+    }
+
+    @Override
+    public List<Expression<?>> getArgs() {
+        return args;
+    }
+
+    @Override
+    public T newInstance(Object... a) {
+        return accessor.newInstance(a);
+    }
+
+    @Override
+    public <R, C> R accept(Visitor<R, C> v, C context) {
+        return v.visit(this, context);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof FastBean)) {
+            return false;
+        }
+        FactoryExpression<?> other = (FactoryExpression<?>) obj;
+        return getType().equals(other.getType()) && args.equals(other.getArgs());
+    }
+}
@@ -0,0 +1,61 @@
+package pipiolo.querydsl.projection;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.Visitor;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * FastProjections.constructor 의 결과
+ * ConstructorExpression 과 같은 역할이지만 캐시된 MethodHandle 로 생성한다.
+ */
+class FastConstructor<T> extends FactoryExpressionBase<T> {
+
+    private final MethodHandle constructor; // (Object[]) -> Object
+    private final List<Expression<?>> args;
+
+    FastConstructor(Class<? extends T> type, MethodHandle constructor, Expression<?>... args) {
+        super(type);
+        this.constructor = constructor;
+        this.args = Collections.unmodifiableList(Arrays.asList(args));
+    }
+
+    @Override
+    public List<Expression<?>> getArgs() {
+        return args;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T newInstance(Object... a) {
+        try {
+            return (T) (Object) constructor.invokeExact(a);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public <R, C> R accept(Visitor<R, C> v, C context) {
+        return v.visit(this, context);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof FastConstructor)) {
+            return false;
+        }
+        FactoryExpression<?> other = (FactoryExpression<?>) obj;
+        return getType().equals(other.getType()) && args.equals(other.getArgs());
+    }
+}
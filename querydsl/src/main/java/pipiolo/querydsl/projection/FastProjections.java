@@ -0,0 +1,221 @@
+package pipiolo.querydsl.projection;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Projections.bean / fields / constructor 대체
+ *
+ * Querydsl 의 Projections 는 row 마다 리플렉션(Method.invoke, Field.set, Constructor.newInstance)으로 DTO 를 만든다.
+ * 여기서는 DTO 클래스 + 별칭 조합마다 한 번만 MethodHandle / LambdaMetafactory 로 접근자를 만들어 캐시하고,
+ * row 마다는 만들어진 람다만 호출한다. 사용법은 Projections 와 같다.
+ *
+ * ex) FastProjections.bean(MemberDto.class, member.username, member.age)
+ */
+public final class FastProjections {
+
+    private static final Map<List<Object>, Object> ACCESSORS = new ConcurrentHashMap<>();
+
+    private FastProjections() {
+    }
+
+    // 기본 생성자 + setter
+    public static <T> FactoryExpression<T> bean(Class<T> type, Expression<?>... exprs) {
+        List<String> names = aliasesOf(exprs);
+        BeanAccessor<T> accessor = cached(List.of(type, "bean", names), () -> BeanAccessor.ofSetters(type, names));
+        return new FastBean<>(type, accessor, exprs);
+    }
+
+    // 기본 생성자 + 필드 직접 주입 (setter 가 없어도 된다)
+    public static <T> FactoryExpression<T> fields(Class<T> type, Expression<?>... exprs) {
+        List<String> names = aliasesOf(exprs);
+        BeanAccessor<T> accessor = cached(List.of(type, "fields", names), () -> BeanAccessor.ofFields(type, names));
+        return new FastBean<>(type, accessor, exprs);
+    }
+
+    // 생성자 (별칭이 아니라 타입으로 찾는다)
+    public static <T> FactoryExpression<T> constructor(Class<T> type, Expression<?>... exprs) {
+        List<Class<?>> argTypes = new ArrayList<>();
+        for (Expression<?> expr : exprs) {
+            argTypes.add(expr.getType());
+        }
+        MethodHandle handle = cached(List.of(type, "constructor", argTypes), () -> constructorHandle(type, argTypes));
+        return new FastConstructor<>(type, handle, exprs);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <A> A cached(List<Object> key, Supplier<A> factory) {
+        return (A) ACCESSORS.computeIfAbsent(key, k -> factory.get());
+    }
+
+    // QBean 과 같은 규칙: 경로면 경로 이름, as() 를 썼으면 별칭
+    private static List<String> aliasesOf(Expression<?>... exprs) {
+        List<String> names = new ArrayList<>(exprs.length);
+        for (Expression<?> expr : exprs) {
+            if (expr instanceof Path) {
+                names.add(((Path<?>) expr).getMetadata().getName());
+            } else if (expr instanceof Operation && ((Operation<?>) expr).getOperator() == Ops.ALIAS) {
+                names.add(((Path<?>) ((Operation<?>) expr).getArg(1)).getMetadata().getName());
+            } else {
+                throw new IllegalArgumentException("별칭이 없는 표현식 입니다. as() 를 사용하세요. expr = " + expr);
+            }
+        }
+        return names;
+    }
+
+    private static MethodHandle constructorHandle(Class<?> type, List<Class<?>> argTypes) {
+        for (Constructor<?> constructor : type.getConstructors()) {
+            if (matches(constructor.getParameterTypes(), argTypes)) {
+                try {
+                    // (Object[]) -> Object 모양으로 맞춰두면 row 마다 invokeExact 로 호출할 수 있다.
+                    return MethodHandles.lookup().unreflectConstructor(constructor)
+                            .asSpreader(Object[].class, argTypes.size())
+                            .asType(MethodType.methodType(Object.class, Object[].class));
+                } catch (IllegalAccessException e) {
+                    throw new IllegalArgumentException(e);
+                }
+            }
+        }
+        throw new IllegalArgumentException("맞는 생성자가 없습니다. " + type.getName() + argTypes);
+    }
+
+    private static boolean matches(Class<?>[] parameterTypes, List<Class<?>> argTypes) {
+        if (parameterTypes.length != argTypes.size()) {
+            return false;
+        }
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (!wrap(parameterTypes[i]).isAssignableFrom(wrap(argTypes.get(i)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        return MethodType.methodType(type).wrap().returnType();
+    }
+
+    static final class BeanAccessor<T> {
+
+        private final Supplier<T> constructor;
+        private final BiConsumer<Object, Object>[] setters;
+
+        private BeanAccessor(Supplier<T> constructor, BiConsumer<Object, Object>[] setters) {
+            this.constructor = constructor;
+            this.setters = setters;
+        }
+
+        T newInstance(Object[] args) {
+            T bean = constructor.get();
+            for (int i = 0; i < args.length; i++) {
+                if (args[i] != null) { // QBean 과 같이 null 은 건너뛴다. (primitive 필드)
+                    setters[i].accept(bean, args[i]);
+                }
+            }
+            return bean;
+        }
+
+        @SuppressWarnings("unchecked")
+        static <T> BeanAccessor<T> ofSetters(Class<T> type, List<String> names) {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+                BiConsumer<Object, Object>[] setters = new BiConsumer[names.size()];
+                for (int i = 0; i < names.size(); i++) {
+                    Method setter = findSetter(type, names.get(i));
+                    MethodHandle handle = lookup.unreflect(setter);
+                    Class<?> parameterType = wrap(setter.getParameterTypes()[0]);
+
+                    // setXxx(int) 를 BiConsumer<Object, Object> 로 -> JIT 가 인라인 할 수 있는 일반 람다와 같다.
+                    CallSite site = LambdaMetafactory.metafactory(
+                            lookup,
+                            "accept",
+                            MethodType.methodType(BiConsumer.class),
+                            MethodType.methodType(void.class, Object.class, Object.class),
+                            handle,
+                            MethodType.methodType(void.class, type, parameterType));
+                    setters[i] = (BiConsumer<Object, Object>) site.getTarget().invoke();
+                }
+                return new BeanAccessor<>(defaultConstructor(type, lookup), setters);
+            } catch (Throwable e) {
+                throw new IllegalArgumentException("setter 접근자를 만들 수 없습니다. " + type.getName() + names, e);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        static <T> BeanAccessor<T> ofFields(Class<T> type, List<String> names) {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+                BiConsumer<Object, Object>[] setters = new BiConsumer[names.size()];
+                for (int i = 0; i < names.size(); i++) {
+                    // 필드 핸들은 LambdaMetafactory 대상이 아니다. (메소드만 가능) -> 핸들을 직접 호출한다.
+                    MethodHandle handle = lookup.unreflectSetter(findField(type, names.get(i)))
+                            .asType(MethodType.methodType(void.class, Object.class, Object.class));
+                    setters[i] = (bean, value) -> {
+                        try {
+                            handle.invokeExact(bean, value);
+                        } catch (Throwable e) {
+                            throw new IllegalStateException(e);
+                        }
+                    };
+                }
+                return new BeanAccessor<>(defaultConstructor(type, lookup), setters);
+            } catch (IllegalAccessException | NoSuchFieldException e) {
+                throw new IllegalArgumentException("필드 접근자를 만들 수 없습니다. " + type.getName() + names, e);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> Supplier<T> defaultConstructor(Class<T> type, MethodHandles.Lookup lookup) {
+            try {
+                CallSite site = LambdaMetafactory.metafactory(
+                        lookup,
+                        "get",
+                        MethodType.methodType(Supplier.class),
+                        MethodType.methodType(Object.class),
+                        lookup.findConstructor(type, MethodType.methodType(void.class)),
+                        MethodType.methodType(type));
+                return (Supplier<T>) site.getTarget().invoke();
+            } catch (Throwable e) {
+                throw new IllegalArgumentException("기본 생성자가 필요합니다. " + type.getName(), e);
+            }
+        }
+
+        private static Method findSetter(Class<?> type, String name) throws NoSuchMethodException {
+            String setterName = "set" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+            return Arrays.stream(type.getMethods())
+                    .filter(method -> method.getName().equals(setterName) && method.getParameterCount() == 1)
+                    .findFirst()
+                    .orElseThrow(() -> new NoSuchMethodException(type.getName() + "." + setterName));
+        }
+
+        private static Field findField(Class<?> type, String name) throws NoSuchFieldException {
+            for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+                try {
+                    return current.getDeclaredField(name);
+                } catch (NoSuchFieldException e) {
+                    // 부모 클래스에서 찾는다.
+                }
+            }
+            throw new NoSuchFieldException(type.getName() + "." + name);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package pipiolo.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * 페이징의 컨텐츠 쿼리와 카운트 쿼리 실행
+ *
+ * 기본은 지금까지처럼 같은 EntityManager 에서 차례대로 실행한다. (응답 시간 = 컨텐츠 + 카운트)
+ * querydsl.pagination.concurrent-count.enabled=true 이면 카운트 쿼리를 별도 EntityManager(커넥션)로
+ * 스레드 풀에서 동시에 실행한다. (응답 시간 = max(컨텐츠, 카운트))
+ *
+ * 주의! 별도 커넥션이라 현재 트랜잭션에서 커밋하지 않은 데이터는 카운트에 포함되지 않는다.
+ *
+ * 이미 아는 카운트(비트맵 인덱스, 카운트 캐시)는 호출한 스레드에서 먼저 찾는다. -> 찾으면 스레드 풀도 커넥션도 쓰지 않는다.
+ * 모르는 카운트만 컨텐츠 쿼리보다 먼저 출발한다. 컨텐츠를 보고 카운트가 필요 없다고 판단되면(첫 페이지가 덜 찼거나 마지막 페이지)
+ * 아직 시작 안 한 카운트는 취소되지만, 이미 실행 중인 카운트는 끝날 때까지 카운트 스레드와 커넥션 하나를 잡고 있다.
+ */
+@Slf4j
+@Component
+public class CountQueryExecutor {
+
+    private final EntityManagerFactory emf;
+    private final boolean concurrent;
+    private final ThreadPoolExecutor executor;
+
+    public CountQueryExecutor(EntityManagerFactory emf,
+                              @Value("${querydsl.pagination.concurrent-count.enabled:false}") boolean concurrent,
+                              @Value("${querydsl.pagination.concurrent-count.pool-size:4}") int poolSize,
+                              @Value("${querydsl.pagination.concurrent-count.queue-capacity:100}") int queueCapacity) {
+        this.emf = emf;
+        this.concurrent = concurrent;
+        // 풀과 큐가 모두 차면 호출한 스레드에서 실행한다. (커넥션 풀을 카운트 쿼리가 다 먹지 않도록 크기를 제한)
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("count-query-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public <T> Page<T> getPage(JPAQueryFactory queryFactory,
+                               Pageable pageable,
+                               Supplier<List<T>> contentQuery,
+                               ToLongFunction<JPAQueryFactory> countQuery) {
+        return getPage(queryFactory, pageable, contentQuery, OptionalLong::empty, countQuery);
+    }
+
+    // knownCount: DB 를 읽지 않고 알 수 있는 카운트 (모르면 empty)
+    public <T> Page<T> getPage(JPAQueryFactory queryFactory,
+                               Pageable pageable,
+                               Supplier<List<T>> contentQuery,
+                               Supplier<OptionalLong> knownCount,
+                               ToLongFunction<JPAQueryFactory> countQuery) {
+        if (!concurrent || pageable.isUnpaged()) {
+            List<T> content = contentQuery.get();
+            return PageableExecutionUtils.getPage(content, pageable, () -> countQuery.applyAsLong(queryFactory));
+        }
+
+        OptionalLong known = knownCount.get();
+        if (known.isPresent()) {
+            List<T> content = contentQuery.get();
+            return PageableExecutionUtils.getPage(content, pageable, known::getAsLong);
+        }
+
+        Future<Long> count = executor.submit(() -> {
+            EntityManager em = emf.createEntityManager();
+            try {
+                return countQuery.applyAsLong(new JPAQueryFactory(em));
+            } finally {
+                em.close();
+            }
+        });
+
+        List<T> content;
+        try {
+            content = contentQuery.get();
+        } catch (RuntimeException e) {
+            count.cancel(false);
+            throw e;
+        }
+
+        AtomicBoolean countUsed = new AtomicBoolean();
+        Page<T> page = PageableExecutionUtils.getPage(content, pageable, () -> {
+            countUsed.set(true);
+            return await(count);
+        });
+
+        // PageableExecutionUtils 가 카운트가 필요 없다고 판단한 경우 (첫 페이지가 덜 찼거나, 마지막 페이지)
+        // 아직 시작 안 했으면 아예 실행하지 않는다. 이미 실행 중이면 결과만 버린다. (H2 는 인터럽트에 약하다)
+        if (!countUsed.get()) {
+            count.cancel(false);
+        }
+        return page;
+    }
+
+    private long await(Future<Long> count) {
+        try {
+            return count.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("카운트 쿼리 대기 중 인터럽트", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // 테스트용: 스레드 풀에 넘긴 카운트 수
+    long submittedCount() {
+        return executor.getTaskCount();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,162 @@
+package pipiolo.querydsl.repository;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.EntityKey;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+import pipiolo.querydsl.dto.BulkChangeResult;
+import pipiolo.querydsl.dto.BulkChunkResult;
+import pipiolo.querydsl.entity.Member;
+import pipiolo.querydsl.event.BulkChangeEvent;
+import pipiolo.querydsl.event.EntityChangeEvent;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import static pipiolo.querydsl.entity.QMember.member;
+
+/**
+ * 청크 단위 벌크 update / delete
+ *
+ * 한 번의 execute() 로 큰 테이블을 바꾸면 트랜잭션이 끝날 때까지 모든 row 에 락이 잡혀있다.
+ * -> member.id 순으로 chunkSize 개씩 끊어서, 청크마다 짧은 트랜잭션(REQUIRES_NEW)으로 실행한다.
+ *
+ * 벌크 연산은 영속성 컨텍스트를 거치지 않는다. (QuerydslBasicTest.bulkUpdate 의 flush / clear 참고)
+ * clear() 로 전부 날리는 대신, 바뀐 회원만 영속성 컨텍스트 / 2차 캐시에서 제거하고 BulkChangeEvent 를 발행한다.
+ *
+ * - 조건(Predicate)에는 member 의 컬럼만 쓸 수 있다. (JPQL 벌크 연산은 조인을 못 한다. 서브쿼리는 가능)
+ * - 청크마다 커밋되므로 중간에 실패하면 앞의 청크들은 이미 반영되어 있다.
+ * - 쓰기 트랜잭션 안에서 호출하면 안 된다. (바깥 트랜잭션이 잡은 락을 청크 트랜잭션이 기다리게 된다.)
+ */
+@Slf4j
+@Repository
+public class MemberBulkRepository {
+
+    private final EntityManager em;
+    private final JPAQueryFactory query;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+
+    public MemberBulkRepository(EntityManager em,
+                                PlatformTransactionManager transactionManager,
+                                ApplicationEventPublisher eventPublisher,
+                                @Value("${querydsl.bulk.chunk-size:1000}") int chunkSize) {
+        Assert.isTrue(chunkSize > 0, "Chunk size must be greater than 0!");
+        this.em = em;
+        this.query = new JPAQueryFactory(em);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+    }
+
+    // ex) memberBulkRepository.update(member.age.lt(28), clause -> clause.set(member.username, "비회원"));
+    public BulkChangeResult update(Predicate predicate, UnaryOperator<JPAUpdateClause> set) {
+        Assert.notNull(set, "Set must not be null!");
+        return execute(EntityChangeEvent.Type.UPDATE, predicate, (fromId, toId) -> set.apply(query.update(member))
+                .where(predicate, member.id.between(fromId, toId))
+                .execute());
+    }
+
+    public BulkChangeResult delete(Predicate predicate) {
+        return execute(EntityChangeEvent.Type.DELETE, predicate, (fromId, toId) -> query
+                .delete(member)
+                .where(predicate, member.id.between(fromId, toId))
+                .execute());
+    }
+
+    private BulkChangeResult execute(EntityChangeEvent.Type type, Predicate predicate, ChunkStatement statement) {
+        Assert.notNull(predicate, "Predicate must not be null!");
+        Assert.state(!TransactionSynchronizationManager.isActualTransactionActive()
+                        || TransactionSynchronizationManager.isCurrentTransactionReadOnly(),
+                "Bulk change must not run inside a read-write transaction!");
+
+        long start = System.nanoTime();
+        List<BulkChunkResult> chunks = new ArrayList<>();
+        Long lastId = null;
+
+        while (true) {
+            Long afterId = lastId;
+            long chunkStart = System.nanoTime();
+
+            // 청크의 id 를 먼저 골라두고 -> 그 범위만 바꾼다. 골라둔 id 는 나중에 영속성 컨텍스트에서 제거할 대상
+            List<Long> ids = new ArrayList<>();
+            long count = transactionTemplate.execute(status -> {
+                ids.addAll(query
+                        .select(member.id)
+                        .from(member)
+                        .where(predicate, afterId == null ? null : member.id.gt(afterId))
+                        .orderBy(member.id.asc())
+                        .limit(chunkSize)
+                        .fetch());
+                return ids.isEmpty() ? 0L : statement.execute(ids.get(0), ids.get(ids.size() - 1));
+            });
+
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            BulkChunkResult chunk = new BulkChunkResult(ids.get(0), ids.get(ids.size() - 1), count, System.nanoTime() - chunkStart);
+            chunks.add(chunk);
+            log.debug("bulk {} chunk = {}", type, chunk);
+
+            evict(ids);
+            eventPublisher.publishEvent(new BulkChangeEvent(type, Member.class, ids));
+
+            if (ids.size() < chunkSize) {
+                break;
+            }
+            lastId = ids.get(ids.size() - 1);
+        }
+
+        BulkChangeResult result = new BulkChangeResult(chunks, System.nanoTime() - start);
+        log.info("bulk {} done. count = {}, chunks = {}, elapsed = {}ms",
+                type, result.getCount(), chunks.size(), result.getElapsedMillis());
+        return result;
+    }
+
+    // 호출한 쪽의 영속성 컨텍스트(OSIV 등)에 남아있는 회원 중 바뀐 것만 detach 한다. -> 다음 조회 때 DB 에서 다시 읽는다.
+    // 영속성 컨텍스트에 없는 id 는 건드리지 않는다. (getReference() 처럼 프록시를 만들지 않는다.)
+    private void evict(List<Long> ids) {
+        Cache secondLevelCache = em.getEntityManagerFactory().getCache(); // 2차 캐시를 쓰지 않으면 아무 일도 안 한다.
+        for (Long id : ids) {
+            secondLevelCache.evict(Member.class, id);
+        }
+
+        if (!TransactionSynchronizationManager.hasResource(em.getEntityManagerFactory())) {
+            return; // 바인딩된 EntityManager 가 없다. -> 영속성 컨텍스트도 없다.
+        }
+
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(Member.class);
+        PersistenceContext persistenceContext = session.getPersistenceContextInternal();
+        for (Long id : ids) {
+            EntityKey key = session.generateEntityKey(id, persister);
+            Object entity = persistenceContext.getEntity(key);
+            if (entity != null) {
+                em.detach(entity);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChunkStatement {
+        long execute(long fromId, long toId);
+    }
+}
@@ -3,30 +3,43 @@ package pipiolo.querydsl.repository;
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
+import pipiolo.querydsl.dto.BulkInsertResult;
 import pipiolo.querydsl.dto.MemberSearchCond;
 import pipiolo.querydsl.dto.MemberTeamDto;
 import pipiolo.querydsl.dto.QMemberTeamDto;
 import pipiolo.querydsl.entity.Member;
 
 import javax.persistence.EntityManager;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static org.springframework.util.StringUtils.hasText;
 import static pipiolo.querydsl.entity.QMember.member;
 import static pipiolo.querydsl.entity.QTeam.team;
 
+@Slf4j
 @Transactional
 @Repository
 public class MemberJpaRepository {
 
+    private static final int STREAM_FETCH_SIZE = 1000;
+
     private final EntityManager em;
     private final JPAQueryFactory query;
+    private final int flushSize;
 
-    public MemberJpaRepository(EntityManager em) {
+    public MemberJpaRepository(EntityManager em,
+                               @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}") int flushSize) {
         this.em = em;
+        this.flushSize = flushSize;
         this.query = new JPAQueryFactory(em); // JPAQueryFactory 를 스프링 빈으로 등록해서 생성자 주입으로 받아도 된다.
 
         // 동시성 문제 없다.
@@ -39,6 +52,30 @@ public class MemberJpaRepository {
         em.persist(member);
     }
 
+    // 대량 저장
+    // persist() 만 반복하면 영속성 컨텍스트에 엔티티와 스냅샷이 끝없이 쌓인다.
+    // flushSize(= JDBC 배치 크기) 마다 flush -> insert 가 배치로 나가고, clear -> 영속성 컨텍스트를 비운다.
+    // 주의! clear() 때문에 호출한 쪽의 영속성 컨텍스트에 있던 엔티티(팀 등)도 준영속 상태가 된다.
+    // 팀은 Member.changeTeam() 대신 setTeam() 으로 넣어야 team.members 에 회원이 쌓이지 않는다.
+    public BulkInsertResult saveAll(Iterable<Member> members) {
+        long start = System.nanoTime();
+        long count = 0;
+        for (Member member : members) {
+            em.persist(member);
+            if (++count % flushSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+
+        BulkInsertResult result = new BulkInsertResult(count, System.nanoTime() - start);
+        log.info("bulk insert members = {}, elapsed = {}ms, rows/sec = {}",
+                result.getCount(), result.getElapsedMillis(), result.getRowsPerSecond());
+        return result;
+    }
+
     public Optional<Member> findById(Long id) {
         Member findMember = em.find(Member.class, id);
         return Optional.ofNullable(findMember);
@@ -124,6 +161,37 @@ public class MemberJpaRepository {
                 .fetch();
     }
 
+    // search() 는 결과 전체를 List 로 메모리에 올린다. 조건이 넓으면 OOM 이 날 수 있다.
+    // stream() 은 JDBC 커서로 fetchSize 만큼씩 가져오기 때문에 결과 크기와 상관없이 메모리가 일정하다.
+    // DTO 조회라 영속성 컨텍스트에도 쌓이지 않는다.
+    // 스트림은 커넥션을 잡고 있으므로 트랜잭션 안에서 소비하고 바로 닫아야 한다. -> 그래서 Consumer 로 받는다.
+    @Transactional(readOnly = true)
+    public long searchStream(MemberSearchCond searchCond, Consumer<MemberTeamDto> action) {
+        try (Stream<MemberTeamDto> stream = query
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(searchCond.getUsername()),
+                        teamNameEq(searchCond.getTeamName()),
+                        ageGoe(searchCond.getAgeGoe()),
+                        ageLoe(searchCond.getAgeLoe()))
+                .setHint(QueryHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .stream()) {
+
+            long count = 0;
+            for (Iterator<MemberTeamDto> iterator = stream.iterator(); iterator.hasNext(); count++) {
+                action.accept(iterator.next());
+            }
+            return count;
+        }
+    }
+
     // BooleanExpression 은 조합이 가능하기 때문에 Predicate 보다 BooleanExpression 이 낫다.
     private BooleanExpression usernameEq(String username) {
         return hasText(username) ? member.username.eq(username) : null;
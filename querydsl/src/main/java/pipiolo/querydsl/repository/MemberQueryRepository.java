@@ -1,14 +1,23 @@
 package pipiolo.querydsl.repository;
 
+import com.querydsl.core.Tuple;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
+import pipiolo.querydsl.cache.TeamNameCache;
 import pipiolo.querydsl.dto.MemberSearchCond;
 import pipiolo.querydsl.dto.MemberTeamDto;
 import pipiolo.querydsl.dto.QMemberTeamDto;
 
 import javax.persistence.EntityManager;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.springframework.util.StringUtils.hasText;
 import static pipiolo.querydsl.entity.QMember.member;
@@ -20,10 +29,16 @@ import static pipiolo.querydsl.entity.QTeam.team;
 @Repository
 public class MemberQueryRepository {
 
+    private final EntityManager em;
     private final JPAQueryFactory query;
+    private final MemberSearchTemplates searchTemplates;
+    private final TeamNameCache teamNameCache;
 
-    public MemberQueryRepository(EntityManager em) {
+    public MemberQueryRepository(EntityManager em, MemberSearchTemplates searchTemplates, TeamNameCache teamNameCache) {
+        this.em = em;
         this.query = new JPAQueryFactory(em);
+        this.searchTemplates = searchTemplates;
+        this.teamNameCache = teamNameCache;
     }
 
     public List<MemberTeamDto> search(MemberSearchCond condition) {
@@ -44,6 +59,63 @@ public class MemberQueryRepository {
                 .fetch();
     }
 
+    // search() 와 결과는 같다.
+    // 조건 모양별로 미리 만들어둔 JPQL 을 쓰기 때문에 요청마다 표현식 트리를 만들고 직렬화하는 비용이 없다.
+    public List<MemberTeamDto> searchByTemplate(MemberSearchCond condition) {
+        return searchTemplates.search(em, condition);
+    }
+
+    // 팀 조인 없이 페이징 검색
+    // teamName -> teamId 는 TeamNameCache 에서 찾고, member.team.id(FK 컬럼)로 필터링한다.
+    // 결과의 teamName 도 캐시에서 채운다. -> 컨텐츠 쿼리, 카운트 쿼리 모두 member 테이블만 읽는다.
+    // 캐시는 커밋된 팀만 알고 있다는 점에 주의.
+    public Page<MemberTeamDto> searchPageWithoutJoin(MemberSearchCond condition, Pageable pageable) {
+        BooleanExpression teamIdIn = null;
+        if (hasText(condition.getTeamName())) {
+            List<Long> teamIds = teamNameCache.getIds(condition.getTeamName());
+            if (teamIds.isEmpty()) {
+                return new PageImpl<>(Collections.emptyList(), pageable, 0); // 없는 팀 -> 쿼리할 필요 없음
+            }
+            teamIdIn = member.team.id.in(teamIds);
+        }
+
+        List<MemberTeamDto> content = query
+                .select(member.id, member.username, member.age, member.team.id)
+                .from(member)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamIdIn,
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch()
+                .stream()
+                .map(this::toMemberTeamDto)
+                .collect(Collectors.toList());
+
+        JPAQuery<Long> countQuery = query
+                .select(member.count())
+                .from(member)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamIdIn,
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()));
+
+        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+    }
+
+    private MemberTeamDto toMemberTeamDto(Tuple tuple) {
+        Long teamId = tuple.get(member.team.id);
+        return new MemberTeamDto(
+                tuple.get(member.id),
+                tuple.get(member.username),
+                tuple.get(member.age),
+                teamId,
+                teamNameCache.getName(teamId));
+    }
+
     private BooleanExpression usernameEq(String username) {
         return hasText(username) ? member.username.eq(username) : null;
     }
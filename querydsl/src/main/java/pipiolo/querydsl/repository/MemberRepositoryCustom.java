@@ -2,6 +2,7 @@ package pipiolo.querydsl.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import pipiolo.querydsl.dto.CursorSlice;
 import pipiolo.querydsl.dto.MemberSearchCond;
 import pipiolo.querydsl.dto.MemberTeamDto;
 
@@ -14,4 +15,6 @@ public interface MemberRepositoryCustom {
     Page<MemberTeamDto> searchPageComplex(MemberSearchCond condition, Pageable pageable);
     Page<MemberTeamDto> searchPageCount(MemberSearchCond condition, Pageable pageable);
     Page<MemberTeamDto> searchPageFinal(MemberSearchCond condition, Pageable pageable);
+    Page<MemberTeamDto> searchPage(MemberSearchCond condition, Pageable pageable, PaginationStrategy strategy);
+    CursorSlice<MemberTeamDto> searchSlice(MemberSearchCond condition, String cursor, int size);
 }
@@ -4,17 +4,30 @@ import com.querydsl.core.QueryResults;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.util.Assert;
+import pipiolo.querydsl.bitmap.MemberBitmapIndex;
+import pipiolo.querydsl.cache.MemberCountCache;
+import pipiolo.querydsl.dto.CursorSlice;
+import pipiolo.querydsl.dto.MemberCursor;
 import pipiolo.querydsl.dto.MemberSearchCond;
 import pipiolo.querydsl.dto.MemberTeamDto;
 import pipiolo.querydsl.dto.QMemberTeamDto;
 import pipiolo.querydsl.entity.Member;
 
 import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.function.LongSupplier;
 
 import static org.springframework.util.StringUtils.hasText;
 import static pipiolo.querydsl.entity.QMember.member;
@@ -22,10 +35,19 @@ import static pipiolo.querydsl.entity.QTeam.team;
 
 public class MemberRepositoryCustomImpl implements MemberRepositoryCustom {
 
+    private final EntityManager em;
     private final JPAQueryFactory query;
+    private final MemberCountCache countCache;
+    private final CountQueryExecutor countQueryExecutor;
+    private final ObjectProvider<MemberBitmapIndex> bitmapIndex; // querydsl.bitmap.enabled=true 일 때만 있다.
 
-    public MemberRepositoryCustomImpl(EntityManager em) {
+    public MemberRepositoryCustomImpl(EntityManager em, MemberCountCache countCache, CountQueryExecutor countQueryExecutor,
+                                      ObjectProvider<MemberBitmapIndex> bitmapIndex) {
+        this.em = em;
         this.query = new JPAQueryFactory(em);
+        this.countCache = countCache;
+        this.countQueryExecutor = countQueryExecutor;
+        this.bitmapIndex = bitmapIndex;
     }
 
     @Override
@@ -95,7 +117,8 @@ public class MemberRepositoryCustomImpl implements MemberRepositoryCustom {
                 .limit(pageable.getPageSize())
                 .fetch();
 
-        long total = query
+        // 같은 조건으로 페이지만 넘기는 경우 카운트는 캐시에서 가져온다.
+        long total = countCache.get(condition, () -> query
                 .select(member)
                 .from(member)
                 .leftJoin(member.team, team)
@@ -104,7 +127,7 @@ public class MemberRepositoryCustomImpl implements MemberRepositoryCustom {
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe()))
-                .fetchCount();
+                .fetchCount());
 
         return new PageImpl<>(content, pageable, total);
     }
@@ -147,28 +170,199 @@ public class MemberRepositoryCustomImpl implements MemberRepositoryCustom {
         return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchCount); // () -> countQuery.fetchCount()
     }
 
+    // 카운트 쿼리는 설정에 따라 컨텐츠 쿼리와 동시에 실행될 수 있다. -> CountQueryExecutor
+    // 비트맵 인덱스가 켜져 있으면 카운트는 DB 를 읽지 않는다. -> countOf()
+    // 정렬은 MemberSort 의 필드만 허용한다. (searchPage() 의 세 방식 모두 같은 순서)
     @Override
     public Page<MemberTeamDto> searchPageFinal(MemberSearchCond condition, Pageable pageable) {
-        List<MemberTeamDto> content = query
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")))
-                .from(member)
-                .leftJoin(member.team, team)
+        MemberSort.validate(pageable.getSort()); // 동시 카운트가 출발하기 전에 검사한다.
+        return countQueryExecutor.getPage(
+                query,
+                pageable,
+                () -> query
+                        .select(new QMemberTeamDto(
+                                member.id.as("memberId"),
+                                member.username,
+                                member.age,
+                                team.id.as("teamId"),
+                                team.name.as("teamName")))
+                        .from(member)
+                        .leftJoin(member.team, team)
+                        .where(
+                                usernameEq(condition.getUsername()),
+                                teamNameEq(condition.getTeamName()),
+                                ageGoe(condition.getAgeGoe()),
+                                ageLoe(condition.getAgeLoe())
+                        )
+                        .orderBy(MemberSort.orders(pageable.getSort()))
+                        .offset(pageable.getOffset())
+                        .limit(pageable.getPageSize())
+                        .fetch(),
+                () -> knownCountOf(condition),
+                countQueryFactory -> countOf(condition, () -> countQueryFactory
+                        .select(member.count())
+                        .from(member)
+                        .leftJoin(member.team, team)
+                        .where(
+                                usernameEq(condition.getUsername()),
+                                teamNameEq(condition.getTeamName()),
+                                ageGoe(condition.getAgeGoe()),
+                                ageLoe(condition.getAgeLoe())
+                        )
+                        .fetchOne()));
+    }
+
+    // DB 를 읽지 않고 알 수 있는 카운트 (비트맵 인덱스 -> 카운트 캐시) -> 동시 카운트가 스레드 풀에 가기 전에 찾는다.
+    private OptionalLong knownCountOf(MemberSearchCond condition) {
+        MemberBitmapIndex index = bitmapIndex.getIfAvailable();
+        if (index != null) {
+            OptionalLong count = index.count(condition);
+            if (count.isPresent()) {
+                return count;
+            }
+        }
+        return countCache.getIfPresent(condition);
+    }
+
+    // 비트맵 인덱스 -> 카운트 캐시 -> 카운트 쿼리 순
+    private long countOf(MemberSearchCond condition, LongSupplier countQuery) {
+        MemberBitmapIndex index = bitmapIndex.getIfAvailable();
+        if (index != null) {
+            OptionalLong count = index.count(condition);
+            if (count.isPresent()) {
+                return count.getAsLong();
+            }
+        }
+        return countCache.get(condition, countQuery);
+    }
+
+    // 어떤 방식이든 결과와 순서는 같다. (pageable 의 정렬 + member.id)
+    @Override
+    public Page<MemberTeamDto> searchPage(MemberSearchCond condition, Pageable pageable, PaginationStrategy strategy) {
+        switch (strategy) {
+            case WINDOW_COUNT:
+                return searchPageWindowCount(condition, pageable);
+            case DEFERRED_JOIN:
+                return searchPageDeferredJoin(condition, pageable);
+            case TWO_QUERY:
+            default:
+                return searchPageFinal(condition, pageable);
+        }
+    }
+
+    // JPQL 에는 윈도우 함수가 없어서 네이티브 쿼리로 작성한다.
+    // count(*) over() 는 limit / offset 이 적용되기 전의 전체 건수 -> 모든 row 에 같은 값이 들어있다.
+    @SuppressWarnings("unchecked")
+    private Page<MemberTeamDto> searchPageWindowCount(MemberSearchCond condition, Pageable pageable) {
+        StringBuilder sql = new StringBuilder()
+                .append("select m.member_id, m.username, m.age, t.team_id, t.name, count(*) over () as total_count")
+                .append(" from member m")
+                .append(" left outer join team t on t.team_id = m.team_id")
+                .append(" where 1 = 1");
+
+        List<Object> parameters = new ArrayList<>();
+        if (hasText(condition.getUsername())) {
+            parameters.add(condition.getUsername());
+            sql.append(" and m.username = ?").append(parameters.size());
+        }
+        if (hasText(condition.getTeamName())) {
+            parameters.add(condition.getTeamName());
+            sql.append(" and t.name = ?").append(parameters.size());
+        }
+        if (condition.getAgeGoe() != null) {
+            parameters.add(condition.getAgeGoe());
+            sql.append(" and m.age >= ?").append(parameters.size());
+        }
+        if (condition.getAgeLoe() != null) {
+            parameters.add(condition.getAgeLoe());
+            sql.append(" and m.age <= ?").append(parameters.size());
+        }
+
+        sql.append(" order by ").append(MemberSort.sqlOrderBy(pageable.getSort(), "m")); // 화이트리스트 컬럼만 들어간다.
+
+        Query nativeQuery = em.createNativeQuery(sql.toString());
+        for (int i = 0; i < parameters.size(); i++) {
+            nativeQuery.setParameter(i + 1, parameters.get(i));
+        }
+        List<Object[]> rows = nativeQuery
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+
+        List<MemberTeamDto> content = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            content.add(new MemberTeamDto(
+                    toLong(row[0]),
+                    (String) row[1],
+                    ((Number) row[2]).intValue(),
+                    toLong(row[3]),
+                    (String) row[4]));
+        }
+
+        // 페이지가 비었으면(마지막 페이지를 넘어간 경우 등) 전체 건수를 알 수 없다. -> 그때만 카운트 쿼리
+        if (rows.isEmpty()) {
+            return PageableExecutionUtils.getPage(content, pageable, () -> countCache.get(condition, () -> query
+                    .select(member.count())
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(
+                            usernameEq(condition.getUsername()),
+                            teamNameEq(condition.getTeamName()),
+                            ageGoe(condition.getAgeGoe()),
+                            ageLoe(condition.getAgeLoe()))
+                    .fetchOne()));
+        }
+        return new PageImpl<>(content, pageable, toLong(rows.get(0)[5]));
+    }
+
+    // 정렬 + offset 은 member.id 만 가지고 처리하고, 조인은 그 페이지의 id 들에 대해서만 한다.
+    // team 조인은 팀 이름 조건이 있을 때만 건다. (left join 이라 조건이 없으면 결과 건수가 같다.)
+    private Page<MemberTeamDto> searchPageDeferredJoin(MemberSearchCond condition, Pageable pageable) {
+        JPAQuery<Long> idQuery = query
+                .select(member.id)
+                .from(member);
+        if (hasText(condition.getTeamName())) {
+            idQuery.join(member.team, team);
+        }
+        List<Long> ids = idQuery
                 .where(
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+                        ageLoe(condition.getAgeLoe()))
+                .orderBy(MemberSort.orders(pageable.getSort()))
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
                 .fetch();
 
-        JPAQuery<Long> countQuery = query
+        List<MemberTeamDto> content = new ArrayList<>(ids.size());
+        if (!ids.isEmpty()) {
+            List<MemberTeamDto> rows = query
+                    .select(new QMemberTeamDto(
+                            member.id.as("memberId"),
+                            member.username,
+                            member.age,
+                            team.id.as("teamId"),
+                            team.name.as("teamName")))
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(member.id.in(ids))
+                    .fetch();
+
+            // in 절은 순서를 보장하지 않는다. -> 1단계에서 정한 순서대로 다시 맞춘다.
+            Map<Long, MemberTeamDto> rowsById = new HashMap<>(rows.size() * 2);
+            for (MemberTeamDto row : rows) {
+                rowsById.put(row.getMemberId(), row);
+            }
+            for (Long id : ids) {
+                MemberTeamDto row = rowsById.get(id);
+                if (row != null) { // 두 쿼리 사이에 삭제된 경우
+                    content.add(row);
+                }
+            }
+        }
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> countCache.get(condition, () -> query
                 .select(member.count())
                 .from(member)
                 .leftJoin(member.team, team)
@@ -176,10 +370,68 @@ public class MemberRepositoryCustomImpl implements MemberRepositoryCustom {
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                );
+                        ageLoe(condition.getAgeLoe()))
+                .fetchOne()));
+    }
 
-        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+    private Long toLong(Object value) {
+        return value == null ? null : ((Number) value).longValue();
+    }
+
+    // offset 페이징은 뒤 페이지로 갈수록 앞의 row 를 전부 읽고 버린다. (offset 50000 -> 50000 건 스캔)
+    // 커서 페이징은 member.id 로 바로 찾아가기 때문에(seek) 몇 번째 페이지든 비용이 같다.
+    // 카운트 쿼리도 없다. size + 1 개를 조회해서 다음 페이지가 있는지만 판단한다.
+    @Override
+    public CursorSlice<MemberTeamDto> searchSlice(MemberSearchCond condition, String cursor, int size) {
+        Assert.isTrue(size > 0, "Size must be greater than 0!");
+
+        MemberCursor memberCursor = MemberCursor.decode(cursor);
+        boolean backward = memberCursor != null && !memberCursor.isNext();
+
+        List<MemberTeamDto> content = new ArrayList<>(query
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()),
+                        memberIdSeek(memberCursor)
+                )
+                .orderBy(backward ? member.id.desc() : member.id.asc())
+                .limit(size + 1L) // size 가 Integer.MAX_VALUE 여도 넘치지 않게 long 으로
+                .fetch());
+
+        boolean hasMore = content.size() > size;
+        if (hasMore) {
+            content.remove(size);
+        }
+        if (backward) {
+            Collections.reverse(content); // 이전 페이지는 역순으로 찾았으니 다시 뒤집는다.
+        }
+
+        if (content.isEmpty()) {
+            return new CursorSlice<>(content, null, null);
+        }
+
+        Long firstId = content.get(0).getMemberId();
+        Long lastId = content.get(content.size() - 1).getMemberId();
+
+        // 앞으로 가는 중이면 커서가 있었다는 것 자체가 이전 페이지가 있다는 뜻이고,
+        // 뒤로 가는 중이면 출발한 페이지가 곧 다음 페이지다.
+        boolean hasNext = backward || hasMore;
+        boolean hasPrev = backward ? hasMore : memberCursor != null;
+
+        return new CursorSlice<>(
+                content,
+                hasNext ? MemberCursor.next(lastId).encode() : null,
+                hasPrev ? MemberCursor.prev(firstId).encode() : null);
     }
 
     private BooleanExpression usernameEq(String username) {
@@ -197,4 +449,11 @@ public class MemberRepositoryCustomImpl implements MemberRepositoryCustom {
     private BooleanExpression ageLoe(Integer ageLoe) {
         return ageLoe != null ? member.age.loe(ageLoe) : null;
     }
+
+    private BooleanExpression memberIdSeek(MemberCursor cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        return cursor.isNext() ? member.id.gt(cursor.getMemberId()) : member.id.lt(cursor.getMemberId());
+    }
 }
@@ -8,6 +8,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.support.QuerydslRepositorySupport;
+import pipiolo.querydsl.dto.CursorSlice;
 import pipiolo.querydsl.dto.MemberSearchCond;
 import pipiolo.querydsl.dto.MemberTeamDto;
 import pipiolo.querydsl.dto.QMemberTeamDto;
@@ -97,6 +98,16 @@ public class MemberRepositoryCustomImplQuerySupport extends QuerydslRepositorySu
         return null;
     }
 
+    @Override
+    public Page<MemberTeamDto> searchPage(MemberSearchCond condition, Pageable pageable, PaginationStrategy strategy) {
+        return null;
+    }
+
+    @Override
+    public CursorSlice<MemberTeamDto> searchSlice(MemberSearchCond condition, String cursor, int size) {
+        return null;
+    }
+
     private BooleanExpression usernameEq(String username) {
         return hasText(username) ? member.username.eq(username) : null;
     }
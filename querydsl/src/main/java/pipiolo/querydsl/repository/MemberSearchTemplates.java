@@ -0,0 +1,175 @@
+package pipiolo.querydsl.repository;
+
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.HQLTemplates;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAQuery;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import pipiolo.querydsl.dto.MemberSearchCond;
+import pipiolo.querydsl.dto.MemberTeamDto;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.springframework.util.StringUtils.hasText;
+import static pipiolo.querydsl.entity.QMember.member;
+import static pipiolo.querydsl.entity.QTeam.team;
+
+/**
+ * 검색 조건 모양(shape)별로 미리 만들어둔 JPQL 템플릿
+ *
+ * usernameEq, teamNameEq, ageGoe, ageLoe 는 각각 있거나 없거나 -> 쿼리 모양은 최대 16개 뿐이다.
+ * 그런데 매 요청마다 Querydsl 표현식 트리를 새로 만들고 JPQL 문자열로 직렬화한다.
+ * 모양별로 JPQL 을 한 번만 만들어 두고, 요청마다 파라미터만 바인딩한다.
+ * (JPQL 파싱 결과는 하이버네이트 QueryPlanCache 가 문자열 기준으로 이미 캐시하고 있다.)
+ */
+@Component
+public class MemberSearchTemplates {
+
+    private static final int USERNAME = 1;
+    private static final int TEAM_NAME = 1 << 1;
+    private static final int AGE_GOE = 1 << 2;
+    private static final int AGE_LOE = 1 << 3;
+
+    private final AtomicReferenceArray<SearchTemplate> templates = new AtomicReferenceArray<>(16);
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer compileTimer;
+
+    public MemberSearchTemplates(MeterRegistry registry) {
+        this.hits = Counter.builder("member.search.template")
+                .tag("result", "hit")
+                .register(registry);
+        this.misses = Counter.builder("member.search.template")
+                .tag("result", "miss")
+                .register(registry);
+        this.compileTimer = Timer.builder("member.search.template.compile")
+                .description("표현식 트리 생성 + JPQL 직렬화 시간")
+                .register(registry);
+
+        Gauge.builder("member.search.template.hit.ratio", this, MemberSearchTemplates::hitRatio)
+                .register(registry);
+        // 캐시가 없었다면 히트마다 컴파일 비용을 냈을 것 -> 히트 수 * 평균 컴파일 시간
+        Gauge.builder("member.search.template.saved", this, MemberSearchTemplates::savedSeconds)
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    public List<MemberTeamDto> search(EntityManager em, MemberSearchCond condition) {
+        return get(condition).execute(em, condition);
+    }
+
+    SearchTemplate get(MemberSearchCond condition) {
+        int shape = shapeOf(condition);
+        SearchTemplate template = templates.get(shape);
+        if (template != null) {
+            hits.increment();
+            return template;
+        }
+
+        misses.increment();
+        template = compileTimer.record(() -> compile(shape));
+        // 동시에 같은 모양을 만들어도 결과는 같다. 먼저 들어간 것을 쓴다.
+        templates.compareAndSet(shape, null, template);
+        return templates.get(shape);
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    private double savedSeconds() {
+        return hits.count() * compileTimer.mean(TimeUnit.SECONDS);
+    }
+
+    private int shapeOf(MemberSearchCond condition) {
+        int shape = 0;
+        if (hasText(condition.getUsername())) {
+            shape |= USERNAME;
+        }
+        if (hasText(condition.getTeamName())) {
+            shape |= TEAM_NAME;
+        }
+        if (condition.getAgeGoe() != null) {
+            shape |= AGE_GOE;
+        }
+        if (condition.getAgeLoe() != null) {
+            shape |= AGE_LOE;
+        }
+        return shape;
+    }
+
+    // 값 대신 Param 으로 자리만 잡아둔다. 직렬화하면 where 절 순서대로 ?1, ?2 ... 가 된다.
+    private SearchTemplate compile(int shape) {
+        JPAQuery<?> query = new JPAQuery<Void>()
+                .select(member.id, member.username, member.age, team.id, team.name)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        (shape & USERNAME) != 0 ? member.username.eq(new Param<>(String.class, "username")) : null,
+                        (shape & TEAM_NAME) != 0 ? team.name.eq(new Param<>(String.class, "teamName")) : null,
+                        (shape & AGE_GOE) != 0 ? member.age.goe(new Param<>(Integer.class, "ageGoe")) : null,
+                        (shape & AGE_LOE) != 0 ? member.age.loe(new Param<>(Integer.class, "ageLoe")) : null);
+
+        JPQLSerializer serializer = new JPQLSerializer(HQLTemplates.DEFAULT);
+        serializer.serialize(query.getMetadata(), false, null);
+        return new SearchTemplate(serializer.toString(), shape);
+    }
+
+    static class SearchTemplate {
+
+        private final String jpql;
+        private final int shape;
+
+        SearchTemplate(String jpql, int shape) {
+            this.jpql = jpql;
+            this.shape = shape;
+        }
+
+        String getJpql() {
+            return jpql;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<MemberTeamDto> execute(EntityManager em, MemberSearchCond condition) {
+            Query query = em.createQuery(jpql);
+
+            // compile() 의 where 순서와 같아야 한다.
+            int position = 1;
+            if ((shape & USERNAME) != 0) {
+                query.setParameter(position++, condition.getUsername());
+            }
+            if ((shape & TEAM_NAME) != 0) {
+                query.setParameter(position++, condition.getTeamName());
+            }
+            if ((shape & AGE_GOE) != 0) {
+                query.setParameter(position++, condition.getAgeGoe());
+            }
+            if ((shape & AGE_LOE) != 0) {
+                query.setParameter(position, condition.getAgeLoe());
+            }
+
+            List<Object[]> rows = query.getResultList();
+            List<MemberTeamDto> result = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                result.add(new MemberTeamDto(
+                        (Long) row[0],
+                        (String) row[1],
+                        (Integer) row[2],
+                        (Long) row[3],
+                        (String) row[4]));
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package pipiolo.querydsl.repository;
+
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static pipiolo.querydsl.entity.QMember.member;
+
+/**
+ * 페이징 검색에서 정렬할 수 있는 Member 필드 (화이트리스트)
+ *
+ * 클라이언트가 보낸 sort 를 그대로 PathBuilder 나 SQL 에 넣으면 없는 필드는 하이버네이트 오류(500)가 되고,
+ * 네이티브 SQL 은 주입 위험도 있다. -> 여기 있는 필드만 허용하고 나머지는 InvalidSortException (400)
+ *
+ * 모든 정렬 끝에 member.id 를 붙여서 같은 값이 여러 개여도 페이지 경계가 흔들리지 않게 한다.
+ */
+public final class MemberSort {
+
+    // sort 이름 -> (Querydsl 경로, 네이티브 SQL 컬럼). 응답 필드 이름(memberId)도 받는다.
+    private static final Map<String, Column> COLUMNS = Map.of(
+            "id", new Column(member.id, "member_id"),
+            "memberId", new Column(member.id, "member_id"),
+            "username", new Column(member.username, "username"),
+            "age", new Column(member.age, "age"));
+
+    public static final Set<String> PROPERTIES = COLUMNS.keySet();
+
+    private MemberSort() {
+    }
+
+    public static boolean isSortable(String property) {
+        return COLUMNS.containsKey(property);
+    }
+
+    public static void validate(Sort sort) {
+        for (Sort.Order order : sort) {
+            column(order.getProperty());
+        }
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public static OrderSpecifier<?>[] orders(Sort sort) {
+        List<OrderSpecifier<?>> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            Order direction = order.isAscending() ? Order.ASC : Order.DESC;
+            orders.add(new OrderSpecifier(direction, column(order.getProperty()).path));
+        }
+        orders.add(member.id.asc());
+        return orders.toArray(new OrderSpecifier[0]);
+    }
+
+    // 네이티브 SQL 용 "m.age desc, m.member_id asc" (alias 는 member 테이블 별칭)
+    public static String sqlOrderBy(Sort sort, String alias) {
+        StringBuilder sql = new StringBuilder();
+        for (Sort.Order order : sort) {
+            sql.append(alias).append('.').append(column(order.getProperty()).sqlColumn)
+                    .append(order.isAscending() ? " asc" : " desc")
+                    .append(", ");
+        }
+        return sql.append(alias).append(".member_id asc").toString();
+    }
+
+    private static Column column(String property) {
+        Column column = COLUMNS.get(property);
+        if (column == null) {
+            throw new InvalidSortException("정렬할 수 없는 필드 입니다. sort = " + property + ", 가능한 필드 = " + PROPERTIES);
+        }
+        return column;
+    }
+
+    private static class Column {
+
+        private final ComparableExpressionBase<?> path;
+        private final String sqlColumn;
+
+        Column(ComparableExpressionBase<?> path, String sqlColumn) {
+            this.path = path;
+            this.sqlColumn = sqlColumn;
+        }
+    }
+}
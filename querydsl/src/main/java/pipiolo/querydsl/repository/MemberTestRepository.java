@@ -1,15 +1,20 @@
 package pipiolo.querydsl.repository;
 
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Param;
 import com.querydsl.jpa.impl.JPAQuery;
+import org.hibernate.Hibernate;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
 import pipiolo.querydsl.dto.MemberSearchCond;
 import pipiolo.querydsl.entity.Member;
+import pipiolo.querydsl.entity.Team;
 
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.springframework.util.StringUtils.hasText;
 import static pipiolo.querydsl.entity.QMember.member;
@@ -18,6 +23,8 @@ import static pipiolo.querydsl.entity.QTeam.team;
 @Repository
 public class MemberTestRepository extends Querydsl4RepositorySupport {
 
+    private static final Param<Integer> AGE_GOE = new Param<>(Integer.class, "ageGoe");
+
     public MemberTestRepository() {
         super(Member.class);
     }
@@ -61,6 +68,16 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
         );
     }
 
+    // 값을 나중에 바인딩하는 Param 을 써도 자동으로 만든 카운트 쿼리에 같은 값이 바인딩된다.
+    public Page<Member> applyPaginationByAgeParam(int ageGoe, Pageable pageable) {
+        return applyPagination(pageable, query -> query
+                .selectFrom(member)
+                .leftJoin(member.team, team)
+                .where(member.age.goe(AGE_GOE))
+                .set(AGE_GOE, ageGoe)
+        );
+    }
+
     public Page<Member> applyPaginationV2(MemberSearchCond condition, Pageable pageable) {
         return applyPagination(
                 pageable,
@@ -82,6 +99,27 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
         );
     }
 
+    // 조회해 둔 회원들의 팀을 in 쿼리 한 번으로 초기화한다.
+    // default_batch_fetch_size 는 처음 접근할 때 100개씩 끊어서 가져오고, 이건 직렬화 전에 명시적으로 한 번에 가져올 때 사용한다.
+    // ex) memberTestRepository.preloadTeams(page.getContent());
+    public void preloadTeams(List<Member> members) {
+        Set<Long> teamIds = new LinkedHashSet<>();
+        for (Member member : members) {
+            Team team = member.getTeam();
+            if (team != null && !Hibernate.isInitialized(team)) {
+                teamIds.add(team.getId()); // 프록시의 id 는 초기화 없이 꺼낼 수 있다.
+            }
+        }
+        if (teamIds.isEmpty()) {
+            return;
+        }
+
+        // 영속성 컨텍스트에 올라오면서 같은 id 의 프록시도 초기화된다.
+        selectFrom(team)
+                .where(team.id.in(teamIds))
+                .fetch();
+    }
+
     private BooleanExpression usernameEq(String username) {
         return hasText(username) ? member.username.eq(username) : null;
     }
@@ -0,0 +1,18 @@
+package pipiolo.querydsl.repository;
+
+/**
+ * MemberRepositoryCustom.searchPage() 의 페이징 방식
+ */
+public enum PaginationStrategy {
+
+    // 컨텐츠 쿼리 + 카운트 쿼리 (searchPageFinal)
+    TWO_QUERY,
+
+    // count(*) over() 로 컨텐츠와 전체 건수를 한 번에 가져온다. -> DB 왕복 1번
+    // 페이지가 비어 있으면 전체 건수를 알 수 없으므로 그때만 카운트 쿼리를 따로 날린다.
+    WINDOW_COUNT,
+
+    // 1. 조건에 맞는 member.id 만 정렬 + offset / limit 으로 가져온다. (좁은 row -> 인덱스만으로 처리 가능)
+    // 2. 그 id 들로 실제 컨텐츠를 조회한다. -> 뒤 페이지로 가도 조인은 반환할 row 에만 일어난다.
+    DEFERRED_JOIN
+}
@@ -1,8 +1,26 @@
 package pipiolo.querydsl.repository;
 
+import com.querydsl.core.DefaultQueryMetadata;
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinFlag;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.QueryFlag;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.CollectionExpression;
+import com.querydsl.core.types.Constant;
 import com.querydsl.core.types.EntityPath;
 import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+import com.querydsl.core.types.dsl.Expressions;
 import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.JPAQueryMixin;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,8 +35,14 @@ import org.springframework.stereotype.Repository;
 import org.springframework.util.Assert;
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
+import java.util.function.LongSupplier;
 
 /**
  * Querydsl 4.x 버전에 맞춘 Querydsl 지원 라이브러리
@@ -37,6 +61,7 @@ public abstract class Querydsl4RepositorySupport {
     private Querydsl querydsl;
     private EntityManager entityManager;
     private JPAQueryFactory queryFactory;
+    private CountQueryExecutor countQueryExecutor;
 
     public Querydsl4RepositorySupport(Class<?> domainClass) {
         Assert.notNull(domainClass, "Domain class must not be null!");
@@ -55,11 +80,18 @@ public abstract class Querydsl4RepositorySupport {
         this.queryFactory = new JPAQueryFactory(entityManager);
     }
 
+    @Autowired
+    public void setCountQueryExecutor(CountQueryExecutor countQueryExecutor) {
+        Assert.notNull(countQueryExecutor, "CountQueryExecutor must not be null!");
+        this.countQueryExecutor = countQueryExecutor;
+    }
+
     @PostConstruct
     public void validate() {
         Assert.notNull(entityManager, "EntityManager must not be null!");
         Assert.notNull(querydsl, "Querydsl must not be null!");
         Assert.notNull(queryFactory, "QueryFactory must not be null!");
+        Assert.notNull(countQueryExecutor, "CountQueryExecutor must not be null!");
     }
 
     protected JPAQueryFactory getQueryFactory() {
@@ -83,13 +115,15 @@ public abstract class Querydsl4RepositorySupport {
         return getQueryFactory().selectFrom(from);
     }
 
+    // 카운트 쿼리는 컨텐츠 쿼리에서 자동으로 만든다. -> countQueryOf() 참고
     protected <T> Page<T> applyPagination(
             Pageable pageable,
             Function<JPAQueryFactory, JPAQuery> contentQuery
     ) {
         JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
+        LongSupplier countQuery = countQueryOf(jpaQuery); // applyPagination() 이 jpaQuery 를 바꾸기 전에 만든다.
         List<T> content = getQuerydsl().applyPagination(pageable, jpaQuery).fetch();
-        return PageableExecutionUtils.getPage(content, pageable, jpaQuery::fetchCount);
+        return PageableExecutionUtils.getPage(content, pageable, countQuery);
     }
 
     protected <T> Page<T> applyPagination(
@@ -97,9 +131,170 @@ public abstract class Querydsl4RepositorySupport {
             Function<JPAQueryFactory, JPAQuery> contentQuery,
             Function<JPAQueryFactory, JPAQuery> countQuery
     ) {
-        JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
-        List<T> content = getQuerydsl().applyPagination(pageable, jpaContentQuery).fetch();
-        JPAQuery countResult = countQuery.apply(getQueryFactory());
-        return PageableExecutionUtils.getPage(content, pageable, countResult::fetchCount);
+        // 카운트 쿼리는 설정에 따라 컨텐츠 쿼리와 동시에 실행될 수 있다. -> CountQueryExecutor
+        return countQueryExecutor.getPage(
+                getQueryFactory(),
+                pageable,
+                () -> getQuerydsl().applyPagination(pageable, contentQuery.apply(getQueryFactory())).fetch(),
+                queryFactory -> countQuery.apply(queryFactory).fetchCount());
+    }
+
+    /**
+     * 컨텐츠 쿼리로 최적화된 카운트 쿼리를 만든다.
+     * applyPaginationV2 처럼 카운트 쿼리를 직접 작성하지 않아도 된다.
+     *
+     * - order by, select 절 제거 -> count(루트 엔티티)
+     * - fetch join 제거
+     * - where / group by / having / 다른 조인에서 쓰지 않는 to-one left join 제거
+     *   (inner join 은 결과 건수를 걸러내고, 컬렉션 left join 은 건수를 늘리기 때문에 남긴다)
+     * - 파라미터(Param) 바인딩, 플래그, 쿼리 힌트는 그대로 옮긴다. (엔티티 그래프, 락 힌트는 카운트에 의미가 없어서 뺀다)
+     *
+     * group by 가 있으면 그룹 수를 세야 하므로 기존처럼 fetchCount() 를 쓴다.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    protected LongSupplier countQueryOf(JPAQuery<?> contentQuery) {
+        QueryMetadata metadata = contentQuery.getMetadata();
+        if (!metadata.getGroupBy().isEmpty() || metadata.getJoins().isEmpty()) {
+            return contentQuery::fetchCount;
+        }
+
+        // 뒤에 있는 조인부터 보면서, 참조되는 별칭을 모은다.
+        Set<Expression<?>> referenced = new HashSet<>();
+        collectRoots(metadata.getWhere(), referenced);
+        collectRoots(metadata.getHaving(), referenced);
+
+        List<JoinExpression> joins = metadata.getJoins();
+        List<JoinExpression> kept = new ArrayList<>();
+        for (int i = joins.size() - 1; i >= 0; i--) {
+            JoinExpression join = joins.get(i);
+            if (i > 0 && isRemovable(join, referenced)) {
+                continue;
+            }
+            kept.add(join);
+            collectRoots(join.getTarget(), referenced);
+            collectRoots(join.getCondition(), referenced);
+        }
+        Collections.reverse(kept);
+
+        Expression<?> root = kept.get(0).getTarget();
+        QueryMetadata countMetadata = new DefaultQueryMetadata();
+        for (JoinExpression join : kept) {
+            countMetadata.addJoin(join.getType(), join.getTarget());
+            if (join.getCondition() != null) {
+                countMetadata.addJoinCondition(join.getCondition());
+            }
+            for (JoinFlag flag : join.getFlags()) {
+                if (!flag.equals(JPAQueryMixin.FETCH) && !flag.equals(JPAQueryMixin.FETCH_ALL_PROPERTIES)) {
+                    countMetadata.addJoinFlag(flag);
+                }
+            }
+        }
+        if (metadata.getWhere() != null) {
+            countMetadata.addWhere(metadata.getWhere());
+        }
+        for (QueryFlag flag : metadata.getFlags()) {
+            if (!COUNT_REMOVED_FLAG_POSITIONS.contains(flag.getPosition())) { // 지운 select / order by 에 붙는 플래그는 뺀다.
+                countMetadata.addFlag(flag);
+            }
+        }
+        metadata.getParams().forEach((param, value) -> countMetadata.setParam((ParamExpression) param, value));
+        countMetadata.setProjection(Expressions.numberOperation(Long.class,
+                metadata.isDistinct() ? Ops.AggOps.COUNT_DISTINCT_AGG : Ops.AggOps.COUNT_AGG, root));
+
+        JPAQuery<Long> countQuery = new JPAQuery<>(getEntityManager(), countMetadata);
+        return () -> {
+            // JPAQuery 는 힌트를 꺼내는 방법이 없어서 JPA 쿼리를 만들어서 읽는다. -> 카운트가 필요할 때만
+            Map<String, Object> hints = contentQuery.createQuery().getHints();
+            hints.forEach((name, value) -> {
+                if (COUNT_REMOVED_HINT_PREFIXES.stream().noneMatch(name::startsWith)) {
+                    countQuery.setHint(name, value);
+                }
+            });
+            return countQuery.fetchOne();
+        };
     }
+
+    private static final Set<QueryFlag.Position> COUNT_REMOVED_FLAG_POSITIONS = Set.of(
+            QueryFlag.Position.AFTER_SELECT, QueryFlag.Position.AFTER_PROJECTION,
+            QueryFlag.Position.BEFORE_ORDER, QueryFlag.Position.AFTER_ORDER);
+
+    private static final List<String> COUNT_REMOVED_HINT_PREFIXES = List.of(
+            "javax.persistence.fetchgraph", "javax.persistence.loadgraph", "javax.persistence.lock.", "org.hibernate.lockMode");
+
+    private boolean isRemovable(JoinExpression join, Set<Expression<?>> referenced) {
+        if (join.getType() != JoinType.LEFTJOIN || join.getCondition() != null) {
+            return false;
+        }
+        Expression<?> target = join.getTarget();
+        if (!(target instanceof Operation) || ((Operation<?>) target).getOperator() != Ops.ALIAS) {
+            return false;
+        }
+        Operation<?> alias = (Operation<?>) target;
+        Expression<?> association = alias.getArg(0);
+        return !(association instanceof CollectionExpression) && !referenced.contains(alias.getArg(1));
+    }
+
+    // 표현식에 쓰인 경로들의 루트(별칭)를 모은다. ex) team.name -> team
+    private void collectRoots(Expression<?> expr, Set<Expression<?>> roots) {
+        if (expr != null) {
+            expr.accept(ROOT_COLLECTOR, roots);
+        }
+    }
+
+    private static final Visitor<Void, Set<Expression<?>>> ROOT_COLLECTOR = new Visitor<>() {
+
+        @Override
+        public Void visit(Constant<?> expr, Set<Expression<?>> roots) {
+            return null;
+        }
+
+        @Override
+        public Void visit(FactoryExpression<?> expr, Set<Expression<?>> roots) {
+            expr.getArgs().forEach(arg -> arg.accept(this, roots));
+            return null;
+        }
+
+        @Override
+        public Void visit(Operation<?> expr, Set<Expression<?>> roots) {
+            expr.getArgs().forEach(arg -> arg.accept(this, roots));
+            return null;
+        }
+
+        @Override
+        public Void visit(ParamExpression<?> expr, Set<Expression<?>> roots) {
+            return null;
+        }
+
+        @Override
+        public Void visit(Path<?> expr, Set<Expression<?>> roots) {
+            roots.add(expr.getRoot());
+            return null;
+        }
+
+        @Override
+        public Void visit(SubQueryExpression<?> expr, Set<Expression<?>> roots) {
+            // 서브쿼리 안에서 바깥 별칭을 참조할 수 있다.
+            QueryMetadata metadata = expr.getMetadata();
+            if (metadata.getWhere() != null) {
+                metadata.getWhere().accept(this, roots);
+            }
+            for (JoinExpression join : metadata.getJoins()) {
+                join.getTarget().accept(this, roots);
+                if (join.getCondition() != null) {
+                    join.getCondition().accept(this, roots);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(TemplateExpression<?> expr, Set<Expression<?>> roots) {
+            for (Object arg : expr.getArgs()) {
+                if (arg instanceof Expression) {
+                    ((Expression<?>) arg).accept(this, roots);
+                }
+            }
+            return null;
+        }
+    };
 }
@@ -0,0 +1,132 @@
+package pipiolo.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.Assert;
+import pipiolo.querydsl.dto.MemberDto;
+import pipiolo.querydsl.dto.TeamRosterDto;
+import pipiolo.querydsl.entity.Member;
+import pipiolo.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static pipiolo.querydsl.entity.QMember.member;
+import static pipiolo.querydsl.entity.QTeam.team;
+
+// 팀 + 소속 회원 목록 페이징
+// 컬렉션 fetch join + limit 은 하이버네이트가 전부 읽어서 메모리에서 페이징한다. (HHH000104 경고)
+// -> 팀 id 만 먼저 페이징하고, 그 id 들에 대해서만 회원을 가져온다.
+@Repository
+public class TeamQueryRepository {
+
+    private final EntityManager em;
+    private final JPAQueryFactory query;
+
+    public TeamQueryRepository(EntityManager em) {
+        this.em = em;
+        this.query = new JPAQueryFactory(em);
+    }
+
+    // memberLimit 이 null 이면 팀의 회원을 전부, 아니면 팀마다 id 순으로 memberLimit 명까지만
+    @Transactional(readOnly = true)
+    public Page<TeamRosterDto> searchRoster(Pageable pageable, Integer memberLimit) {
+        Assert.isTrue(memberLimit == null || memberLimit >= 0, "Member limit must not be negative!");
+
+        List<Long> teamIds = query
+                .select(team.id)
+                .from(team)
+                .orderBy(team.id.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        List<TeamRosterDto> content = teamIds.isEmpty()
+                ? new ArrayList<>()
+                : memberLimit == null ? fetchRoster(teamIds) : fetchRosterLimited(teamIds, memberLimit);
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> query
+                .select(team.count())
+                .from(team)
+                .fetchOne());
+    }
+
+    // 페이지의 팀들만 fetch join -> row 수 = 페이지 팀들의 회원 수
+    private List<TeamRosterDto> fetchRoster(List<Long> teamIds) {
+        List<Team> teams = query
+                .selectFrom(team).distinct()
+                .leftJoin(team.members, member).fetchJoin()
+                .where(team.id.in(teamIds))
+                .orderBy(team.id.asc(), member.id.asc())
+                .fetch();
+
+        List<TeamRosterDto> content = new ArrayList<>(teams.size());
+        for (Team findTeam : teams) {
+            TeamRosterDto roster = new TeamRosterDto(findTeam.getId(), findTeam.getName());
+            for (Member findMember : findTeam.getMembers()) {
+                roster.getMembers().add(new MemberDto(findMember.getUsername(), findMember.getAge()));
+            }
+            roster.setMemberCount(roster.getMembers().size());
+            content.add(roster);
+        }
+        return content;
+    }
+
+    // 팀마다 앞의 memberLimit 명만 -> row_number() over (partition by team_id) 로 한 번에 거른다.
+    // 페이지가 몇 팀이든 쿼리는 팀 / 팀별 회원 수 / 회원 세 번이고, 회원은 팀마다 memberLimit 건만 넘어온다.
+    // (팀마다 limit 쿼리를 날리면 팀 수만큼 나가고, 상관 서브쿼리로 거르면 팀 크기의 제곱이 된다.)
+    // 엔티티 컬렉션을 일부만 채울 수는 없으므로 DTO 로 바로 조회한다.
+    @SuppressWarnings("unchecked")
+    private List<TeamRosterDto> fetchRosterLimited(List<Long> teamIds, int memberLimit) {
+        Map<Long, TeamRosterDto> rosters = new LinkedHashMap<>();
+        for (Tuple tuple : query
+                .select(team.id, team.name)
+                .from(team)
+                .where(team.id.in(teamIds))
+                .orderBy(team.id.asc())
+                .fetch()) {
+            rosters.put(tuple.get(team.id), new TeamRosterDto(tuple.get(team.id), tuple.get(team.name)));
+        }
+
+        for (Tuple tuple : query
+                .select(member.team.id, member.count())
+                .from(member)
+                .where(member.team.id.in(teamIds))
+                .groupBy(member.team.id)
+                .fetch()) {
+            rosters.get(tuple.get(member.team.id)).setMemberCount(tuple.get(member.count()));
+        }
+
+        if (memberLimit == 0) {
+            return new ArrayList<>(rosters.values());
+        }
+
+        List<Object[]> rows = em.createNativeQuery(
+                        "select r.team_id, r.username, r.age from (" +
+                                " select m.team_id, m.member_id, m.username, m.age," +
+                                " row_number() over (partition by m.team_id order by m.member_id) as rn" +
+                                " from member m" +
+                                " where m.team_id in (?1)" +
+                                ") r" +
+                                " where r.rn <= ?2" +
+                                " order by r.team_id, r.member_id")
+                .setParameter(1, teamIds)
+                .setParameter(2, memberLimit)
+                .getResultList();
+
+        for (Object[] row : rows) {
+            rosters.get(((Number) row[0]).longValue()).getMembers()
+                    .add(new MemberDto((String) row[1], ((Number) row[2]).intValue()));
+        }
+
+        return new ArrayList<>(rosters.values());
+    }
+}
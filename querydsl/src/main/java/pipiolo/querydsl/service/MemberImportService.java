@@ -0,0 +1,202 @@
+package pipiolo.querydsl.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pipiolo.querydsl.dto.MemberImportResult;
+import pipiolo.querydsl.dto.MemberImportRow;
+import pipiolo.querydsl.entity.Member;
+import pipiolo.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.util.StringUtils.hasText;
+import static pipiolo.querydsl.entity.QTeam.team;
+
+/**
+ * 회원 파일 가져오기 (CSV / NDJSON)
+ *
+ * - 파일을 메모리에 올리지 않고 한 줄씩 읽는다.
+ * - chunkSize 건마다 하나의 트랜잭션으로 저장한다. (JDBC 배치 insert + flush / clear)
+ *   중간에 실패해도 앞의 청크는 커밋되어 있고, 실패한 청크만 실패 건수로 센다.
+ * - 팀 이름 -> 팀 id 는 메모리 맵으로 찾고, 처음 보는 팀은 만든다.
+ */
+@Slf4j
+@Service
+public class MemberImportService {
+
+    private final EntityManager em;
+    private final JPAQueryFactory query;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+
+    public MemberImportService(EntityManager em,
+                               PlatformTransactionManager transactionManager,
+                               ObjectMapper objectMapper,
+                               @Value("${querydsl.import.chunk-size:1000}") int chunkSize) {
+        this.em = em;
+        this.query = new JPAQueryFactory(em);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+    }
+
+    public MemberImportResult importCsv(InputStream in) throws IOException {
+        return importRows(in, this::parseCsv);
+    }
+
+    public MemberImportResult importNdjson(InputStream in) throws IOException {
+        return importRows(in, line -> objectMapper.readValue(line, MemberImportRow.class));
+    }
+
+    private MemberImportResult importRows(InputStream in, LineParser parser) throws IOException {
+        ImportContext context = new ImportContext(loadTeamIds());
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<MemberImportRow> chunk = new ArrayList<>(chunkSize);
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (!hasText(line)) {
+                continue;
+            }
+
+            MemberImportRow row;
+            try {
+                row = parser.parse(line);
+            } catch (IOException | RuntimeException e) {
+                context.failed++;
+                log.warn("import parse failed. line = {}, content = {}", lineNumber, line);
+                continue;
+            }
+            if (row == null) {
+                continue; // CSV 헤더
+            }
+            if (!isValid(row)) {
+                context.failed++;
+                log.warn("import invalid row. line = {}, content = {}", lineNumber, line);
+                continue;
+            }
+
+            chunk.add(row);
+            if (chunk.size() == chunkSize) {
+                insertChunk(chunk, context);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            insertChunk(chunk, context);
+        }
+
+        MemberImportResult result = context.result();
+        log.info("import done = {}", result);
+        return result;
+    }
+
+    private void insertChunk(List<MemberImportRow> chunk, ImportContext context) {
+        Map<String, Long> createdTeamIds = new HashMap<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (MemberImportRow row : chunk) {
+                    Member member = new Member(row.getUsername(), row.getAge());
+                    if (hasText(row.getTeamName())) {
+                        // changeTeam() 은 팀의 members 컬렉션을 로딩한다. -> FK 만 넣는다.
+                        member.setTeam(em.getReference(Team.class, teamIdOf(row.getTeamName(), context, createdTeamIds)));
+                    }
+                    em.persist(member);
+                }
+                em.flush();
+                em.clear();
+            });
+            context.imported += chunk.size();
+            context.createdTeams += createdTeamIds.size();
+        } catch (RuntimeException e) {
+            // 롤백된 청크에서 만든 팀은 맵에서도 지운다.
+            createdTeamIds.keySet().forEach(context.teamIds::remove);
+            context.failed += chunk.size();
+            log.warn("import chunk failed. rows = {}", chunk.size(), e);
+        }
+
+        log.info("import progress imported = {}, failed = {}", context.imported, context.failed);
+    }
+
+    private Long teamIdOf(String teamName, ImportContext context, Map<String, Long> createdTeamIds) {
+        Long teamId = context.teamIds.get(teamName);
+        if (teamId == null) {
+            Team newTeam = new Team(teamName);
+            em.persist(newTeam); // 시퀀스 id 라서 persist 시점에 id 가 정해진다.
+            teamId = newTeam.getId();
+            context.teamIds.put(teamName, teamId);
+            createdTeamIds.put(teamName, teamId);
+        }
+        return teamId;
+    }
+
+    // 같은 이름의 팀이 여러 개면 먼저 만들어진 팀으로
+    private Map<String, Long> loadTeamIds() {
+        Map<String, Long> teamIds = new HashMap<>();
+        transactionTemplate.executeWithoutResult(status -> query
+                .select(team.name, team.id.min())
+                .from(team)
+                .groupBy(team.name)
+                .fetch()
+                .forEach(tuple -> teamIds.put(tuple.get(team.name), tuple.get(team.id.min()))));
+        return teamIds;
+    }
+
+    // username,age,teamName (따옴표 이스케이프는 지원하지 않는다)
+    private MemberImportRow parseCsv(String line) {
+        if (line.startsWith("username,")) {
+            return null; // 헤더
+        }
+        String[] columns = line.split(",", -1);
+        MemberImportRow row = new MemberImportRow();
+        row.setUsername(columns[0].trim());
+        row.setAge(Integer.valueOf(columns[1].trim()));
+        row.setTeamName(columns.length > 2 ? columns[2].trim() : null);
+        return row;
+    }
+
+    private boolean isValid(MemberImportRow row) {
+        return hasText(row.getUsername()) && row.getAge() != null && row.getAge() >= 0;
+    }
+
+    @FunctionalInterface
+    private interface LineParser {
+        MemberImportRow parse(String line) throws IOException;
+    }
+
+    private static class ImportContext {
+
+        private final Map<String, Long> teamIds;
+        private final long start = System.nanoTime();
+        private long imported;
+        private long failed;
+        private long createdTeams;
+
+        ImportContext(Map<String, Long> teamIds) {
+            this.teamIds = teamIds;
+        }
+
+        MemberImportResult result() {
+            return new MemberImportResult(imported, failed, createdTeams,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+}
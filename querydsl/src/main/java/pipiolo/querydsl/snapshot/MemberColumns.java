@@ -0,0 +1,178 @@
+package pipiolo.querydsl.snapshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 회원 + 팀을 컬럼 단위 기본형 배열로 들고 있는 구조 (MemberSnapshotEngine 전용)
+ *
+ * - ids: member.id 오름차순 정렬 -> 이진 탐색으로 위치를 찾는다.
+ * - ages: int[]
+ * - teamCodes: 팀 사전(dictionary) 의 번호, 팀이 없으면 -1
+ * - usernameCodes: 회원 이름 사전의 번호 -> 같은 이름은 문자열 하나만 들고 있고, 비교는 int 로 한다.
+ *
+ * 스레드 안전하지 않다. 락은 MemberSnapshotEngine 이 잡는다.
+ */
+class MemberColumns {
+
+    static final int NO_TEAM = -1;
+
+    long[] ids;
+    int[] ages;
+    int[] teamCodes;
+    int[] usernameCodes;
+    int size;
+
+    final List<Long> teamIds = new ArrayList<>();
+    final List<String> teamNames = new ArrayList<>();
+    private final Map<Long, Integer> teamCodeById = new HashMap<>();
+
+    final List<String> usernames = new ArrayList<>();
+    private final Map<String, Integer> usernameCodeByName = new HashMap<>();
+
+    MemberColumns(int capacity) {
+        capacity = Math.max(capacity, 16);
+        ids = new long[capacity];
+        ages = new int[capacity];
+        teamCodes = new int[capacity];
+        usernameCodes = new int[capacity];
+    }
+
+    // 이름이 사전에 없으면 -1 -> 그 이름의 회원은 없다.
+    int usernameCodeOf(String username) {
+        Integer code = usernameCodeByName.get(username);
+        return code == null ? -1 : code;
+    }
+
+    // 팀 이름은 유니크가 아니다. -> 이름이 같은 팀 번호를 모두 true 로. 하나도 없으면 null
+    boolean[] teamCodesNamed(String teamName) {
+        boolean[] match = new boolean[teamNames.size()];
+        boolean any = false;
+        for (int code = 0; code < match.length; code++) {
+            if (teamName.equals(teamNames.get(code))) {
+                match[code] = true;
+                any = true;
+            }
+        }
+        return any ? match : null;
+    }
+
+    // 팀 번호를 찾고, 없으면 새로 만든다. 이름을 알면 갱신한다.
+    int teamCode(Long teamId, String teamName) {
+        if (teamId == null) {
+            return NO_TEAM;
+        }
+        Integer code = teamCodeById.get(teamId);
+        if (code == null) {
+            code = teamIds.size();
+            teamIds.add(teamId);
+            teamNames.add(teamName);
+            teamCodeById.put(teamId, code);
+        } else if (teamName != null) {
+            teamNames.set(code, teamName);
+        }
+        return code;
+    }
+
+    private int usernameCode(String username) {
+        if (username == null) {
+            return -1;
+        }
+        return usernameCodeByName.computeIfAbsent(username, name -> {
+            usernames.add(name);
+            return usernames.size() - 1;
+        });
+    }
+
+    String username(int index) {
+        int code = usernameCodes[index];
+        return code < 0 ? null : usernames.get(code);
+    }
+
+    // 스캔으로 채울 때: 정렬은 마지막에 sortById() 로 한 번만
+    void append(long id, String username, int age, Long teamId, String teamName) {
+        ensureCapacity(size + 1);
+        set(size++, id, username, age, teamId, teamName);
+    }
+
+    // 변경 이벤트: 있으면 덮어쓰고, 없으면 정렬 순서에 맞게 끼워 넣는다. (보통은 id 가 제일 커서 맨 뒤에 붙는다.)
+    void upsert(long id, String username, int age, Long teamId, String teamName) {
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index < 0) {
+            index = -(index + 1);
+            ensureCapacity(size + 1);
+            int moved = size - index;
+            System.arraycopy(ids, index, ids, index + 1, moved);
+            System.arraycopy(ages, index, ages, index + 1, moved);
+            System.arraycopy(teamCodes, index, teamCodes, index + 1, moved);
+            System.arraycopy(usernameCodes, index, usernameCodes, index + 1, moved);
+            size++;
+        }
+        set(index, id, username, age, teamId, teamName);
+    }
+
+    void remove(long id) {
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index < 0) {
+            return;
+        }
+        int moved = size - index - 1;
+        System.arraycopy(ids, index + 1, ids, index, moved);
+        System.arraycopy(ages, index + 1, ages, index, moved);
+        System.arraycopy(teamCodes, index + 1, teamCodes, index, moved);
+        System.arraycopy(usernameCodes, index + 1, usernameCodes, index, moved);
+        size--;
+    }
+
+    void sortById() {
+        boolean sorted = true;
+        for (int i = 1; i < size && sorted; i++) {
+            sorted = ids[i - 1] < ids[i];
+        }
+        if (sorted) {
+            return;
+        }
+
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(ids[a], ids[b]));
+
+        long[] sortedIds = new long[ids.length];
+        int[] sortedAges = new int[ages.length];
+        int[] sortedTeamCodes = new int[teamCodes.length];
+        int[] sortedUsernameCodes = new int[usernameCodes.length];
+        for (int i = 0; i < size; i++) {
+            sortedIds[i] = ids[order[i]];
+            sortedAges[i] = ages[order[i]];
+            sortedTeamCodes[i] = teamCodes[order[i]];
+            sortedUsernameCodes[i] = usernameCodes[order[i]];
+        }
+        ids = sortedIds;
+        ages = sortedAges;
+        teamCodes = sortedTeamCodes;
+        usernameCodes = sortedUsernameCodes;
+    }
+
+    private void set(int index, long id, String username, int age, Long teamId, String teamName) {
+        ids[index] = id;
+        ages[index] = age;
+        teamCodes[index] = teamCode(teamId, teamName);
+        usernameCodes[index] = usernameCode(username);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, newCapacity);
+        ages = Arrays.copyOf(ages, newCapacity);
+        teamCodes = Arrays.copyOf(teamCodes, newCapacity);
+        usernameCodes = Arrays.copyOf(usernameCodes, newCapacity);
+    }
+}
@@ -0,0 +1,292 @@
+package pipiolo.querydsl.snapshot;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import pipiolo.querydsl.cache.TeamNameCache;
+import pipiolo.querydsl.dto.MemberSearchCond;
+import pipiolo.querydsl.dto.MemberTeamDto;
+import pipiolo.querydsl.dto.QMemberTeamDto;
+import pipiolo.querydsl.entity.Member;
+import pipiolo.querydsl.entity.Team;
+import pipiolo.querydsl.event.BulkChangeEvent;
+import pipiolo.querydsl.event.EntityChangeEvent;
+import pipiolo.querydsl.repository.MemberJpaRepository;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import static org.springframework.util.StringUtils.hasText;
+import static pipiolo.querydsl.entity.QMember.member;
+import static pipiolo.querydsl.entity.QTeam.team;
+
+/**
+ * 메모리 컬럼 스냅샷 검색 엔진 (querydsl.snapshot.enabled=true 일 때만 빈으로 등록된다.)
+ *
+ * 회원 전체를 MemberColumns(기본형 배열)로 들고 있고, MemberSearchCond 검색과 페이징을 DB 없이 처리한다.
+ * - 시작할 때 searchStream() 으로 한 번 읽는다. (rebuild)
+ * - 이후에는 커밋된 Member / Team 변경 이벤트로 갱신한다. 벌크 연산은 바뀐 id 만 다시 읽는다.
+ * - 다시 만드는 중에 들어온 이벤트는 모아 두었다가 다 만든 뒤에 적용한다. (upsert / remove 라 두 번 적용돼도 같다.)
+ *   rebuild 는 한 번에 하나씩만 돈다. (먼저 끝난 rebuild 가 building 을 풀면 다른 rebuild 가 읽는 중에 들어온 이벤트를 잃는다.)
+ * - 쓰기 락 안에서는 DB 나 캐시를 읽지 않는다. 필요한 값은 락 밖에서 미리 구한다.
+ *
+ * 검색은 배열을 처음부터 끝까지 훑는다. 조건 비교는 모두 int 비교라 분기가 가볍고 캐시 친화적이다.
+ * 결과는 member.id 순이다. (searchPageFinal 은 정렬이 없어서 DB 가 주는 순서)
+ * 메모리: 회원 한 명당 약 20 bytes + 서로 다른 이름 문자열
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "querydsl.snapshot.enabled", havingValue = "true")
+public class MemberSnapshotEngine {
+
+    private static final int RELOAD_CHUNK_SIZE = 1000;
+
+    private final MemberJpaRepository memberJpaRepository;
+    private final TeamNameCache teamNameCache;
+    private final JPAQueryFactory query;
+    private final TransactionTemplate newReadOnlyTransaction;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private MemberColumns columns = new MemberColumns(0);
+
+    private final Object rebuildLock = new Object();
+
+    // lock = pending
+    private final List<Consumer<MemberColumns>> pending = new ArrayList<>();
+    private boolean building;
+
+    public MemberSnapshotEngine(MemberJpaRepository memberJpaRepository,
+                                TeamNameCache teamNameCache,
+                                EntityManager em,
+                                PlatformTransactionManager transactionManager) {
+        this.memberJpaRepository = memberJpaRepository;
+        this.teamNameCache = teamNameCache;
+        this.query = new JPAQueryFactory(em);
+        this.newReadOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.newReadOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.newReadOnlyTransaction.setReadOnly(true);
+    }
+
+    public Page<MemberTeamDto> searchPage(MemberSearchCond condition, Pageable pageable) {
+        lock.readLock().lock();
+        try {
+            MemberColumns c = columns;
+
+            int usernameCode = -1;
+            if (hasText(condition.getUsername())) {
+                usernameCode = c.usernameCodeOf(condition.getUsername());
+                if (usernameCode < 0) {
+                    return new PageImpl<>(new ArrayList<>(), pageable, 0);
+                }
+            }
+            boolean[] teamMatch = null;
+            if (hasText(condition.getTeamName())) {
+                teamMatch = c.teamCodesNamed(condition.getTeamName());
+                if (teamMatch == null) {
+                    return new PageImpl<>(new ArrayList<>(), pageable, 0);
+                }
+            }
+            int ageGoe = condition.getAgeGoe() == null ? Integer.MIN_VALUE : condition.getAgeGoe();
+            int ageLoe = condition.getAgeLoe() == null ? Integer.MAX_VALUE : condition.getAgeLoe();
+
+            long offset = pageable.getOffset();
+            int limit = pageable.getPageSize();
+            int[] hits = new int[Math.min(limit, c.size)];
+            int collected = 0;
+            long total = 0;
+
+            long[] ids = c.ids; // 필드 대신 지역 변수 -> JIT 가 루프 밖으로 꺼낼 수 있다.
+            int[] ages = c.ages;
+            int[] usernameCodes = c.usernameCodes;
+            int[] teamCodes = c.teamCodes;
+            for (int i = 0, size = c.size; i < size; i++) {
+                int age = ages[i];
+                if (age < ageGoe | age > ageLoe) {
+                    continue;
+                }
+                if (usernameCode >= 0 && usernameCodes[i] != usernameCode) {
+                    continue;
+                }
+                if (teamMatch != null) {
+                    int teamCode = teamCodes[i];
+                    if (teamCode < 0 || !teamMatch[teamCode]) {
+                        continue;
+                    }
+                }
+                if (total >= offset && collected < limit) {
+                    hits[collected++] = i;
+                }
+                total++;
+            }
+
+            List<MemberTeamDto> content = new ArrayList<>(collected);
+            for (int n = 0; n < collected; n++) {
+                int i = hits[n];
+                int teamCode = teamCodes[i];
+                content.add(new MemberTeamDto(
+                        ids[i],
+                        c.username(i),
+                        ages[i],
+                        teamCode < 0 ? null : c.teamIds.get(teamCode),
+                        teamCode < 0 ? null : c.teamNames.get(teamCode)));
+            }
+            return new PageImpl<>(content, pageable, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return columns.size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (pending) {
+                building = true;
+            }
+
+            long start = System.nanoTime();
+            MemberColumns rebuilt = new MemberColumns(size());
+            try {
+                memberJpaRepository.searchStream(new MemberSearchCond(), dto -> rebuilt.append(
+                        dto.getMemberId(), dto.getUsername(), dto.getAge(), dto.getTeamId(), dto.getTeamName()));
+                rebuilt.sortById();
+            } catch (RuntimeException | Error e) {
+                // 지금 스냅샷에 모아둔 이벤트를 적용하고 그대로 쓴다.
+                synchronized (pending) {
+                    building = false;
+                    pending.forEach(this::write);
+                    pending.clear();
+                }
+                throw e;
+            }
+
+            synchronized (pending) {
+                lock.writeLock().lock();
+                try {
+                    columns = rebuilt;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                building = false;
+                pending.forEach(this::write);
+                pending.clear();
+            }
+            log.info("member snapshot rebuilt. members = {}, elapsed = {}ms",
+                    rebuilt.size, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        if (event.isFor(Team.class) && event.getType() != EntityChangeEvent.Type.DELETE) {
+            Long teamId = (Long) event.getId();
+            String teamName = (String) event.getValue("name");
+            apply(c -> c.teamCode(teamId, teamName));
+            return;
+        }
+        if (!event.isFor(Member.class)) {
+            return;
+        }
+
+        long memberId = (Long) event.getId();
+        if (event.getType() == EntityChangeEvent.Type.DELETE) {
+            apply(c -> c.remove(memberId));
+            return;
+        }
+
+        String username = (String) event.getValue("username");
+        int age = (Integer) event.getValue("age");
+        Team memberTeam = (Team) event.getValue("team");
+        Long teamId = memberTeam == null ? null : memberTeam.getId();
+        // 초기화 안 된 프록시의 이름은 꺼낼 수 없다. (세션이 이미 닫혔다.) -> 캐시에서 찾는다.
+        // 캐시가 DB 를 읽을 수 있으니 락을 잡기 전에 구한다.
+        String teamName = memberTeam != null && Hibernate.isInitialized(memberTeam) ? memberTeam.getName()
+                : teamNameCache.getName(teamId);
+        apply(c -> c.upsert(memberId, username, age, teamId, teamName));
+    }
+
+    // 벌크 연산은 변경 후 값을 모른다. -> 바뀐 id 만 다시 읽는다. (지워졌으면 제거)
+    @EventListener
+    public void onBulkChange(BulkChangeEvent event) {
+        if (!event.isFor(Member.class)) {
+            return;
+        }
+        if (event.getType() == EntityChangeEvent.Type.DELETE) {
+            apply(c -> event.getIds().forEach(c::remove));
+            return;
+        }
+
+        List<Long> ids = event.getIds();
+        for (int from = 0; from < ids.size(); from += RELOAD_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + RELOAD_CHUNK_SIZE, ids.size()));
+            List<MemberTeamDto> rows = newReadOnlyTransaction.execute(status -> query
+                    .select(new QMemberTeamDto(
+                            member.id.as("memberId"),
+                            member.username,
+                            member.age,
+                            team.id.as("teamId"),
+                            team.name.as("teamName")))
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(member.id.in(chunk))
+                    .fetch());
+
+            Set<Long> found = new HashSet<>();
+            rows.forEach(row -> found.add(row.getMemberId()));
+            apply(c -> {
+                for (MemberTeamDto row : rows) {
+                    c.upsert(row.getMemberId(), row.getUsername(), row.getAge(), row.getTeamId(), row.getTeamName());
+                }
+                for (Long id : chunk) {
+                    if (!found.contains(id)) {
+                        c.remove(id);
+                    }
+                }
+            });
+        }
+    }
+
+    // building 확인과 적용을 한 락 안에서 한다. -> 확인한 뒤 rebuild 가 시작돼서 바꿔 끼울 스냅샷에만 적용되는 일이 없다.
+    private void apply(Consumer<MemberColumns> change) {
+        synchronized (pending) {
+            if (building) {
+                pending.add(change);
+                return;
+            }
+            write(change);
+        }
+    }
+
+    private void write(Consumer<MemberColumns> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(columns);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package pipiolo.querydsl.stats;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import pipiolo.querydsl.cache.TeamNameCache;
+import pipiolo.querydsl.dto.TeamStatsDto;
+import pipiolo.querydsl.entity.Member;
+import pipiolo.querydsl.entity.Team;
+import pipiolo.querydsl.event.BulkChangeEvent;
+import pipiolo.querydsl.event.EntityChangeEvent;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static pipiolo.querydsl.entity.QMember.member;
+
+/**
+ * 팀별 회원 나이 통계 (읽기 모델)
+ *
+ * group by team.name 집계는 매번 member 테이블 전체를 읽는다. (QuerydslBasicTest.group)
+ * 메모리에 팀별 count / sum / 나이별 인원수(TreeMap -> min, max)를 들고 있고, 커밋된 Member 변경으로 갱신한다.
+ * 회원마다 지금 반영된 (팀, 나이)를 들고 있다. (MemberBitmapIndex.Bitmaps.entries 와 같은 방식)
+ * - INSERT / UPDATE: 들고 있던 (팀, 나이)를 빼고 새 (팀, 나이)를 더한다. (changeTeam() 포함, 예전 값은 필요 없다.)
+ * - DELETE: 들고 있던 (팀, 나이)를 뺀다.
+ * - 벌크 연산: 바뀐 값을 모른다. -> 다음 조회 때 전체를 다시 만든다.
+ * -> 같은 변경을 두 번 반영해도 결과가 같다.
+ *
+ * 다시 만드는 중(DB 를 읽는 중)에 들어온 변경은 지금 통계에도 반영하고, 따로 모아뒀다가 새로 읽은 통계에 다시 반영한다.
+ * 읽은 결과에 이미 들어있는 변경을 다시 반영해도 같은 값이라 두 번 세지 않는다.
+ * 다시 만들기와 reconcile 은 한 번에 하나씩만 돈다.
+ * 팀이 없는 회원은 집계하지 않는다. (team 과 inner join 한 결과와 같다.)
+ * 메모리: 회원 한 명당 entry 하나
+ */
+@Slf4j
+@Component
+public class TeamStatistics {
+
+    private final Supplier<List<Tuple>> loader; // 회원별 (id, 팀 id, 나이)
+    private final TeamNameCache teamNameCache;
+
+    private final Object reloadLock = new Object(); // rebuild / reconcile 은 한 번에 하나씩
+
+    // lock = this
+    private Stats stats = new Stats();
+    private final List<Consumer<Stats>> pending = new ArrayList<>(); // 다시 읽는 중에 들어온 변경
+    private boolean loading;
+    private volatile boolean stale;
+
+    @Autowired
+    public TeamStatistics(EntityManager em, PlatformTransactionManager transactionManager, TeamNameCache teamNameCache) {
+        JPAQueryFactory query = new JPAQueryFactory(em);
+        TransactionTemplate newReadOnlyTransaction = new TransactionTemplate(transactionManager);
+        newReadOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        newReadOnlyTransaction.setReadOnly(true);
+
+        this.loader = () -> newReadOnlyTransaction.execute(status -> query
+                .select(member.id, member.team.id, member.age)
+                .from(member)
+                .where(member.team.isNotNull())
+                .fetch());
+        this.teamNameCache = teamNameCache;
+    }
+
+    // 테스트용: DB 를 읽는 방법만 바꾼다.
+    TeamStatistics(Supplier<List<Tuple>> loader, TeamNameCache teamNameCache) {
+        this.loader = loader;
+        this.teamNameCache = teamNameCache;
+    }
+
+    // 팀 수만큼만 돈다.
+    public List<TeamStatsDto> getStats() {
+        if (stale) {
+            rebuildIfStale();
+        }
+
+        List<TeamStatsDto> result = new ArrayList<>();
+        synchronized (this) {
+            stats.byTeam.forEach((teamId, teamStats) -> result.add(new TeamStatsDto(
+                    teamId, null, teamStats.count, teamStats.ageSum, teamStats.ages.firstKey(), teamStats.ages.lastKey())));
+        }
+        // 팀 이름 캐시가 DB 를 읽을 수 있으니 락 밖에서 채운다.
+        result.forEach(dto -> dto.setTeamName(teamNameCache.getName(dto.getTeamId())));
+        result.sort((a, b) -> Long.compare(a.getTeamId(), b.getTeamId()));
+        return result;
+    }
+
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        // 팀을 지우려면 소속 회원이 먼저 빠져 있어야 한다. (FK) -> 남아 있다면 이미 어긋난 것
+        if (event.isFor(Team.class) && event.getType() == EntityChangeEvent.Type.DELETE) {
+            Long teamId = (Long) event.getId();
+            apply(stats -> stats.removeTeam(teamId));
+            return;
+        }
+        if (!event.isFor(Member.class)) {
+            return;
+        }
+
+        Long memberId = (Long) event.getId();
+        if (event.getType() == EntityChangeEvent.Type.DELETE) {
+            apply(stats -> stats.put(memberId, null));
+            return;
+        }
+
+        Long teamId = teamIdOf(event.getValue("team"));
+        Integer age = (Integer) event.getValue("age");
+        Entry entry = teamId == null || age == null ? null : new Entry(teamId, age);
+        apply(stats -> stats.put(memberId, entry));
+    }
+
+    @EventListener
+    public void onBulkChange(BulkChangeEvent event) {
+        if (event.isFor(Member.class) || event.isFor(Team.class)) {
+            stale = true;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (reloadLock) {
+            stale = false; // 읽는 도중에 다시 stale 이 되면 그대로 남는다. -> 다음 조회 때 또 만든다.
+            reload(false);
+        }
+    }
+
+    // 증분 갱신이 어긋났는지 DB 와 비교하고, 어긋났으면 바꿔 끼운다.
+    // 읽는 동안 들어온 변경도 새로 읽은 쪽에 다시 반영한 뒤 비교한다. -> 같은 변경을 반영한 두 결과끼리 비교
+    @Scheduled(initialDelayString = "${querydsl.stats.reconcile-interval-ms:60000}",
+            fixedDelayString = "${querydsl.stats.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        synchronized (reloadLock) {
+            reload(true);
+        }
+    }
+
+    // 여러 요청이 동시에 stale 을 보고 들어와도 한 번만 다시 만든다.
+    private void rebuildIfStale() {
+        synchronized (reloadLock) {
+            if (stale) {
+                rebuild();
+            }
+        }
+    }
+
+    private void reload(boolean reportDrift) {
+        synchronized (this) {
+            loading = true;
+        }
+
+        Stats loaded;
+        try {
+            loaded = load();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                loading = false;
+                pending.clear(); // 지금 통계에는 이미 반영돼 있다.
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            pending.forEach(change -> change.accept(loaded));
+            pending.clear();
+            loading = false;
+
+            if (reportDrift && !loaded.byTeam.equals(stats.byTeam)) {
+                log.warn("team statistics drifted. rebuilt. teams = {}", loaded.byTeam.size());
+            }
+            stats = loaded;
+        }
+    }
+
+    // 지금 통계에 바로 반영하고, 다시 읽는 중이면 새로 읽은 통계에도 반영하도록 모아둔다.
+    private synchronized void apply(Consumer<Stats> change) {
+        change.accept(stats);
+        if (loading) {
+            pending.add(change);
+        }
+    }
+
+    private Stats load() {
+        Stats loaded = new Stats();
+        for (Tuple row : loader.get()) {
+            loaded.put(row.get(member.id), new Entry(row.get(member.team.id), row.get(member.age)));
+        }
+        return loaded;
+    }
+
+    // 상태 배열에는 Team 엔티티(또는 프록시)가 들어있다. 프록시의 id 는 초기화 없이 꺼낼 수 있다.
+    private Long teamIdOf(Object team) {
+        return team == null ? null : ((Team) team).getId();
+    }
+
+    // 회원 하나가 지금 반영된 (팀, 나이)
+    @EqualsAndHashCode
+    private static class Entry {
+
+        private final long teamId;
+        private final int age;
+
+        Entry(long teamId, int age) {
+            this.teamId = teamId;
+            this.age = age;
+        }
+    }
+
+    private static class Stats {
+
+        private final Map<Long, Entry> entries = new HashMap<>();
+        private final Map<Long, TeamAgeStats> byTeam = new HashMap<>();
+
+        // entry 가 null 이면 집계에서 뺀다. 같은 값으로 여러 번 불러도 결과가 같다.
+        void put(Long memberId, Entry entry) {
+            Entry old = entry == null ? entries.remove(memberId) : entries.put(memberId, entry);
+            if (Objects.equals(old, entry)) {
+                return;
+            }
+            if (old != null) {
+                remove(old);
+            }
+            if (entry != null) {
+                add(entry);
+            }
+        }
+
+        void removeTeam(Long teamId) {
+            byTeam.remove(teamId);
+            entries.values().removeIf(entry -> entry.teamId == teamId);
+        }
+
+        private void add(Entry entry) {
+            TeamAgeStats teamStats = byTeam.computeIfAbsent(entry.teamId, key -> new TeamAgeStats());
+            teamStats.count++;
+            teamStats.ageSum += entry.age;
+            teamStats.ages.merge(entry.age, 1L, Long::sum);
+        }
+
+        private void remove(Entry entry) {
+            TeamAgeStats teamStats = byTeam.get(entry.teamId);
+            if (teamStats == null) {
+                return;
+            }
+            teamStats.count--;
+            teamStats.ageSum -= entry.age;
+            if (teamStats.ages.merge(entry.age, -1L, Long::sum) <= 0) {
+                teamStats.ages.remove(entry.age);
+            }
+            if (teamStats.count <= 0) {
+                byTeam.remove(entry.teamId);
+            }
+        }
+    }
+
+    private static class TeamAgeStats {
+
+        private long count;
+        private long ageSum;
+        private final TreeMap<Integer, Long> ages = new TreeMap<>(); // 나이 -> 인원수
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof TeamAgeStats)) {
+                return false;
+            }
+            TeamAgeStats that = (TeamAgeStats) o;
+            return count == that.count && ageSum == that.ageSum && ages.equals(that.ages);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(count, ageSum, ages);
+        }
+    }
+}
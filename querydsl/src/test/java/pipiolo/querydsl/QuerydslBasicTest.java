@@ -22,6 +22,7 @@ import pipiolo.querydsl.dto.UserDto;
 import pipiolo.querydsl.entity.Member;
 import pipiolo.querydsl.entity.QMember;
 import pipiolo.querydsl.entity.Team;
+import pipiolo.querydsl.projection.FastProjections;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
@@ -720,6 +721,59 @@ public class QuerydslBasicTest {
         }
     }
 
+    // Projections 와 사용법은 같다.
+    // row 마다 리플렉션 대신 미리 만들어 캐시해둔 람다(MethodHandle)로 DTO 를 만든다.
+    @Test
+    void findDtoByFastProjections() {
+        List<MemberDto> beans = query
+                .select(FastProjections.bean(MemberDto.class,
+                        member.username,
+                        member.age))
+                .from(member)
+                .orderBy(member.age.asc())
+                .fetch();
+
+        List<MemberDto> fields = query
+                .select(FastProjections.fields(MemberDto.class,
+                        member.username,
+                        member.age))
+                .from(member)
+                .orderBy(member.age.asc())
+                .fetch();
+
+        List<MemberDto> constructors = query
+                .select(FastProjections.constructor(MemberDto.class,
+                        member.username,
+                        member.age))
+                .from(member)
+                .orderBy(member.age.asc())
+                .fetch();
+
+        List<MemberDto> expected = query
+                .select(new QMemberDto(member.username, member.age))
+                .from(member)
+                .orderBy(member.age.asc())
+                .fetch();
+
+        assertThat(beans).isEqualTo(expected);
+        assertThat(fields).isEqualTo(expected);
+        assertThat(constructors).isEqualTo(expected);
+    }
+
+    @Test
+    void findUserDtoByFastProjections() {
+        List<UserDto> result = query
+                .select(FastProjections.fields(UserDto.class,
+                        member.username.as("name"), // 별칭 규칙도 Projections 와 같다.
+                        member.age))
+                .from(member)
+                .where(member.username.eq("member1"))
+                .fetch();
+
+        assertThat(result).extracting("name").containsExactly("member1");
+        assertThat(result).extracting("age").containsExactly(10);
+    }
+
     @Test
     void dynamicQuery_booleanBuilder() {
         String username = "member1";
@@ -0,0 +1,115 @@
+package pipiolo.querydsl.bitmap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import pipiolo.querydsl.dto.MemberSearchCond;
+import pipiolo.querydsl.entity.Member;
+import pipiolo.querydsl.entity.Team;
+import pipiolo.querydsl.repository.MemberBulkRepository;
+import pipiolo.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static pipiolo.querydsl.entity.QMember.member;
+
+// 커밋된 변경만 반영되므로 @Transactional 롤백을 쓰지 않고 직접 지운다.
+@SpringBootTest(properties = "querydsl.bitmap.enabled=true")
+class MemberBitmapIndexTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberBitmapIndex bitmapIndex;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberBulkRepository memberBulkRepository;
+
+    Long member1Id;
+    Long member3Id;
+    Long teamAId;
+
+    @BeforeEach
+    void beforeEach() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+
+            Member member1 = new Member("member1", 10, teamA);
+            Member member3 = new Member("member3", 30, teamB);
+            em.persist(member1);
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(member3);
+            em.persist(new Member("member4", 40, teamB));
+            em.persist(new Member("member5", 50));
+
+            member1Id = member1.getId();
+            member3Id = member3.getId();
+            teamAId = teamA.getId();
+        });
+    }
+
+    @AfterEach
+    void afterEach() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m").executeUpdate();
+            em.createQuery("delete from Team t").executeUpdate();
+        });
+        bitmapIndex.rebuild();
+    }
+
+    @Test
+    void count() {
+        assertThat(bitmapIndex.count(new MemberSearchCond())).hasValue(5);
+        assertThat(bitmapIndex.count(condition(null, "teamB", 35, null))).hasValue(1);
+        assertThat(bitmapIndex.count(condition(null, null, 20, 40))).hasValue(3);
+        assertThat(bitmapIndex.count(condition("member2", "teamA", null, null))).hasValue(1);
+        assertThat(bitmapIndex.count(condition("member2", "teamB", null, null))).hasValue(0);
+        assertThat(bitmapIndex.count(condition(null, "teamC", null, null))).hasValue(0);
+    }
+
+    @Test
+    void updateFromEvents() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.find(Member.class, member3Id).changeTeam(em.find(Team.class, teamAId)); // teamB -> teamA
+            em.remove(em.find(Member.class, member1Id));
+        });
+        assertThat(bitmapIndex.count(condition(null, "teamA", null, null))).hasValue(2);
+
+        memberBulkRepository.update(member.age.goe(40), clause -> clause.set(member.age, member.age.add(100)));
+        assertThat(bitmapIndex.count(condition(null, null, 100, null))).hasValue(2);
+
+        // searchPageFinal 의 카운트도 비트맵에서 (두 번째 페이지 -> 카운트 필요)
+        assertThat(memberRepository.searchPageFinal(condition(null, null, 20, null), PageRequest.of(1, 2))
+                .getTotalElements()).isEqualTo(4);
+    }
+
+    @Test
+    void notUsedInsideReadWriteTransaction() {
+        transactionTemplate.executeWithoutResult(status ->
+                assertThat(bitmapIndex.count(new MemberSearchCond())).isEmpty());
+    }
+
+    private MemberSearchCond condition(String username, String teamName, Integer ageGoe, Integer ageLoe) {
+        MemberSearchCond condition = new MemberSearchCond();
+        condition.setUsername(username);
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        condition.setAgeLoe(ageLoe);
+        return condition;
+    }
+}
@@ -0,0 +1,81 @@
+package pipiolo.querydsl.cache;
+
+import org.junit.jupiter.api.Test;
+import pipiolo.querydsl.dto.MemberSearchCond;
+import pipiolo.querydsl.entity.Member;
+import pipiolo.querydsl.event.EntityChangeEvent;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberCountCacheTest {
+
+    MemberCountCache countCache = new MemberCountCache(30, 100);
+
+    @Test
+    void cacheByNormalizedCondition() {
+        AtomicInteger queryCount = new AtomicInteger();
+
+        MemberSearchCond condition1 = new MemberSearchCond();
+        condition1.setUsername("");
+        condition1.setAgeGoe(10);
+
+        MemberSearchCond condition2 = new MemberSearchCond();
+        condition2.setAgeGoe(10);
+
+        long total1 = countCache.get(condition1, () -> queryCount.incrementAndGet() * 100L);
+        long total2 = countCache.get(condition2, () -> queryCount.incrementAndGet() * 100L);
+
+        // "" 와 null 은 같은 조건 -> 카운트 쿼리는 한 번만
+        assertThat(total1).isEqualTo(100L);
+        assertThat(total2).isEqualTo(100L);
+        assertThat(queryCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidateOnMemberChange() {
+        AtomicInteger queryCount = new AtomicInteger();
+        MemberSearchCond condition = new MemberSearchCond();
+
+        countCache.get(condition, queryCount::incrementAndGet);
+        countCache.onEntityChange(new EntityChangeEvent(
+                EntityChangeEvent.Type.INSERT, Member.class, 1L, null, new String[0], new Object[0], null));
+        countCache.get(condition, queryCount::incrementAndGet);
+
+        assertThat(queryCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    void invalidateWhileCountIsRunning() throws Exception {
+        MemberSearchCond condition = new MemberSearchCond();
+        CountDownLatch countStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // 변경 커밋 전에 시작한 카운트가 멈춰 있다.
+        CompletableFuture<Long> stale = CompletableFuture.supplyAsync(() -> countCache.get(condition, () -> {
+            countStarted.countDown();
+            await(release);
+            return 10L;
+        }));
+        assertThat(countStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        countCache.invalidateAll();
+        release.countDown();
+        assertThat(stale.get(5, TimeUnit.SECONDS)).isEqualTo(10L);
+
+        // 예전 카운트는 예전 버전 키에 들어갔다. -> 커밋 뒤의 요청은 다시 센다.
+        assertThat(countCache.get(condition, () -> 11L)).isEqualTo(11L);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package pipiolo.querydsl.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import pipiolo.querydsl.dto.MemberSearchCond;
+import pipiolo.querydsl.dto.MemberTeamDto;
+import pipiolo.querydsl.entity.Member;
+import pipiolo.querydsl.event.EntityChangeEvent;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberSearchResultCacheTest {
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    MemberSearchResultCache resultCache = new MemberSearchResultCache(registry, 60, 1024 * 1024);
+
+    @Test
+    void cacheByNormalizedConditionAndPage() {
+        AtomicInteger searchCount = new AtomicInteger();
+
+        MemberSearchCond condition1 = new MemberSearchCond();
+        condition1.setUsername("");
+        MemberSearchCond condition2 = new MemberSearchCond();
+
+        resultCache.get("v5", condition1, PageRequest.of(0, 10), () -> searchCount.incrementAndGet());
+        resultCache.get("v5", condition2, PageRequest.of(0, 10), () -> searchCount.incrementAndGet());
+        resultCache.get("v5", condition2, PageRequest.of(1, 10), () -> searchCount.incrementAndGet());
+
+        assertThat(searchCount.get()).isEqualTo(2);
+        assertThat(registry.get("cache.gets").tag("cache", "member.search.result").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidateOnMemberChange() {
+        AtomicInteger searchCount = new AtomicInteger();
+        MemberSearchCond condition = new MemberSearchCond();
+
+        resultCache.get("v1", condition, null, () -> searchCount.incrementAndGet());
+        resultCache.onEntityChange(new EntityChangeEvent(
+                EntityChangeEvent.Type.UPDATE, Member.class, 1L, null, new String[0], new Object[0], new Object[0]));
+        resultCache.get("v1", condition, null, () -> searchCount.incrementAndGet());
+
+        assertThat(searchCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    void invalidateWhileCoalescedSearchIsRunning() throws Exception {
+        SearchCoalescer coalescer = new SearchCoalescer(registry, true, 5000);
+        MemberSearchCond condition = new MemberSearchCond();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // 변경 커밋 전에 시작한 조회가 멈춰 있다.
+        CompletableFuture<String> stale = CompletableFuture.supplyAsync(() ->
+                resultCache.get("v5", condition, PageRequest.of(0, 10), operation ->
+                        coalescer.execute(operation, condition, PageRequest.of(0, 10), () -> {
+                            leaderStarted.countDown();
+                            await(release);
+                            return "stale";
+                        })));
+        assertThat(leaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        resultCache.invalidateAll();
+
+        // 커밋 뒤의 요청은 멈춰 있는 조회에 합쳐지지 않고 새로 조회한다.
+        try {
+            String fresh = resultCache.get("v5", condition, PageRequest.of(0, 10), operation ->
+                    coalescer.execute(operation, condition, PageRequest.of(0, 10), () -> "fresh"));
+            assertThat(fresh).isEqualTo("fresh");
+        } finally {
+            release.countDown();
+        }
+        assertThat(stale.get(5, TimeUnit.SECONDS)).isEqualTo("stale");
+
+        // 예전 조회 결과는 예전 버전 키에 들어갔다. -> 새 버전에서는 읽히지 않는다.
+        String cached = resultCache.get("v5", condition, PageRequest.of(0, 10), () -> "miss");
+        assertThat(cached).isEqualTo("fresh");
+    }
+
+    @Test
+    void estimateBytes() {
+        MemberTeamDto dto = new MemberTeamDto(1L, "member1", 10, 1L, "teamA");
+        int one = MemberSearchResultCache.estimateBytes(List.of(dto));
+        int two = MemberSearchResultCache.estimateBytes(List.of(dto, dto));
+
+        assertThat(two - one).isEqualTo(MemberSearchResultCache.estimateBytes(dto) + 4);
+        assertThat(MemberSearchResultCache.estimateBytes(new PageImpl<>(List.of(dto)))).isGreaterThan(one);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package pipiolo.querydsl.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import pipiolo.querydsl.dto.MemberSearchCond;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SearchCoalescerTest {
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    SearchCoalescer coalescer = new SearchCoalescer(registry, true, 5000);
+
+    @Test
+    void coalesceConcurrentSearches() throws Exception {
+        AtomicInteger searchCount = new AtomicInteger();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        MemberSearchCond condition = new MemberSearchCond();
+        condition.setAgeGoe(10);
+
+        CompletableFuture<List<String>> leader = CompletableFuture.supplyAsync(() ->
+                coalescer.execute("v2", condition, PageRequest.of(0, 10), () -> {
+                    searchCount.incrementAndGet();
+                    leaderStarted.countDown();
+                    await(release);
+                    return List.of("member1");
+                }));
+        assertThat(leaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // "" 와 null 은 같은 조건 -> 같은 키
+        MemberSearchCond sameCondition = new MemberSearchCond();
+        sameCondition.setUsername("");
+        sameCondition.setAgeGoe(10);
+
+        CompletableFuture<List<String>> follower = CompletableFuture.supplyAsync(() ->
+                coalescer.execute("v2", sameCondition, PageRequest.of(0, 10), () -> {
+                    searchCount.incrementAndGet();
+                    return List.of("other");
+                }));
+
+        // follower 가 leader 의 결과를 기다리기 시작할 때까지
+        while (registry.get("member.search.coalesce").tag("role", "follower").counter().count() < 1) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+
+        assertThat(follower.get(5, TimeUnit.SECONDS)).isSameAs(leader.get(5, TimeUnit.SECONDS));
+        assertThat(searchCount.get()).isEqualTo(1);
+        assertThat(registry.get("member.search.coalesce.ratio").gauge().value()).isEqualTo(0.5);
+    }
+
+    @Test
+    void differentPageIsNotCoalesced() {
+        MemberSearchCond condition = new MemberSearchCond();
+
+        coalescer.execute("v2", condition, PageRequest.of(0, 10), () -> "page0");
+        String result = coalescer.execute("v2", condition, PageRequest.of(1, 10), () -> "page1");
+
+        assertThat(result).isEqualTo("page1");
+        assertThat(registry.get("member.search.coalesce").tag("role", "leader").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void leaderFailureIsNotCached() {
+        MemberSearchCond condition = new MemberSearchCond();
+
+        assertThatThrownBy(() -> coalescer.execute("v1", condition, null, () -> {
+            throw new IllegalStateException("db down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        // 끝난 조회는 바로 지워진다. -> 다음 요청은 다시 조회한다.
+        assertThat(coalescer.execute("v1", condition, null, () -> "ok")).isEqualTo("ok");
+    }
+
+    @Test
+    void followerFallsBackAfterTimeout() throws Exception {
+        SearchCoalescer shortTimeout = new SearchCoalescer(registry, true, 100);
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        MemberSearchCond condition = new MemberSearchCond();
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() ->
+                shortTimeout.execute("v2", condition, PageRequest.of(0, 10), () -> {
+                    leaderStarted.countDown();
+                    await(release);
+                    return "leader";
+                }));
+        assertThat(leaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // leader 가 멈춰 있어도 follower 는 기다리다가 직접 조회한다.
+        try {
+            String result = shortTimeout.execute("v2", condition, PageRequest.of(0, 10), () -> "follower");
+
+            assertThat(result).isEqualTo("follower");
+            assertThat(registry.get("member.search.coalesce.follower.timeout").counter().count()).isEqualTo(1);
+        } finally {
+            release.countDown();
+        }
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("leader");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package pipiolo.querydsl.cache;
+
+import org.junit.jupiter.api.Test;
+import pipiolo.querydsl.entity.Team;
+import pipiolo.querydsl.event.EntityChangeEvent;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TeamNameCacheTest {
+
+    // 테스트가 바꾸는 "DB" 의 팀 목록
+    Map<Long, String> teams = new ConcurrentHashMap<>(Map.of(1L, "teamA"));
+    AtomicInteger loadCount = new AtomicInteger();
+
+    @Test
+    void loadOnceAndInvalidateOnTeamChange() {
+        TeamNameCache cache = new TeamNameCache(() -> {
+            loadCount.incrementAndGet();
+            return Map.copyOf(teams);
+        });
+
+        assertThat(cache.getName(1L)).isEqualTo("teamA");
+        assertThat(cache.getIds("teamA")).containsExactly(1L);
+        assertThat(cache.getIds("teamB")).isEmpty();
+        assertThat(loadCount.get()).isEqualTo(1);
+
+        teams.put(2L, "teamB");
+        cache.onEntityChange(new EntityChangeEvent(
+                EntityChangeEvent.Type.INSERT, Team.class, 2L, null, new String[0], new Object[0], null));
+
+        assertThat(cache.getName(2L)).isEqualTo("teamB");
+        assertThat(cache.getIds("teamB")).containsExactly(2L);
+        assertThat(loadCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    void staleLoadIsNotPublished() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        TeamNameCache cache = new TeamNameCache(() -> {
+            Map<Long, String> read = Map.copyOf(teams); // 팀 변경이 커밋되기 전에 읽었다.
+            if (loadCount.incrementAndGet() == 1) {
+                loading.countDown();
+                await(release);
+            }
+            return read;
+        });
+
+        CompletableFuture<String> staleReader = CompletableFuture.supplyAsync(() -> cache.getName(1L));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // 조회 도중 팀이 추가되고 커밋 -> invalidate
+        teams.put(2L, "teamB");
+        cache.invalidate();
+        release.countDown();
+
+        assertThat(staleReader.get(5, TimeUnit.SECONDS)).isEqualTo("teamA");
+
+        // 오래된 스냅샷은 올라가지 않았다. -> 다시 읽어서 새 팀이 보인다.
+        assertThat(cache.getIds("teamB")).containsExactly(2L);
+        assertThat(cache.getName(2L)).isEqualTo("teamB");
+        assertThat(loadCount.get()).isEqualTo(2);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
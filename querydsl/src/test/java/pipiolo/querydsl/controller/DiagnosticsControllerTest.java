@@ -0,0 +1,26 @@
+package pipiolo.querydsl.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// querydsl.diagnostics.index-advisor.apply-enabled 기본값은 false
+@SpringBootTest
+@AutoConfigureMockMvc
+class DiagnosticsControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    void applyIndexesDisabledTest() throws Exception {
+        // 꺼진 기능은 서버 오류(500)가 아니라 404
+        mockMvc.perform(post("/diagnostics/indexes"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,107 @@
+package pipiolo.querydsl.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+import pipiolo.querydsl.entity.Member;
+import pipiolo.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class MemberControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Test
+    void searchMemberV6InvalidCursorTest() throws Exception {
+        mockMvc.perform(get("/members/v6").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+
+        // Base64 는 맞지만 id 가 숫자가 아닌 경우
+        mockMvc.perform(get("/members/v6").param("cursor", "bjphYmM")) // "n:abc"
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void searchMemberV6SizeTest() throws Exception {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+
+        // size + 1 이 넘치지 않고, 최대 페이지 크기로 맞춰진다.
+        mockMvc.perform(get("/members/v6").param("size", String.valueOf(Integer.MAX_VALUE)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2));
+
+        mockMvc.perform(get("/members/v6").param("size", "0"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1));
+    }
+
+    @Test
+    void searchMemberV5InvalidSortTest() throws Exception {
+        for (String strategy : new String[]{"TWO_QUERY", "WINDOW_COUNT", "DEFERRED_JOIN"}) {
+            mockMvc.perform(get("/members/v5").param("strategy", strategy).param("sort", "foo"))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get("/members/v5").param("strategy", strategy).param("sort", "age,desc"))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    @Test
+    void exportMembersTest() throws Exception {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.flush();
+        em.clear();
+
+        MvcResult result = mockMvc.perform(get("/members/export").param("teamName", "teamB"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn();
+
+        // 한 줄에 JSON 하나, 마지막 줄도 개행으로 끝난다.
+        String body = result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        assertThat(body).endsWith("\n");
+
+        List<String> usernames = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            JsonNode row = objectMapper.readTree(line);
+            assertThat(row.get("teamName").asText()).isEqualTo("teamB");
+            usernames.add(row.get("username").asText());
+        }
+        assertThat(usernames).containsExactlyInAnyOrder("member3", "member4");
+    }
+}
@@ -0,0 +1,73 @@
+package pipiolo.querydsl.diagnostics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import pipiolo.querydsl.dto.MemberSearchCond;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class IndexAdvisorTest {
+
+    @Autowired
+    SearchWorkload searchWorkload;
+
+    @Autowired
+    IndexAdvisor indexAdvisor;
+
+    @BeforeEach
+    void beforeEach() {
+        searchWorkload.clear();
+    }
+
+    @Test
+    void recommend() {
+        MemberSearchCond usernameOnly = new MemberSearchCond();
+        usernameOnly.setUsername("member1");
+
+        MemberSearchCond usernameAndAge = new MemberSearchCond();
+        usernameAndAge.setUsername("member1");
+        usernameAndAge.setAgeGoe(20);
+
+        MemberSearchCond teamAndAge = new MemberSearchCond();
+        teamAndAge.setTeamName("teamA");
+        teamAndAge.setAgeLoe(30);
+
+        for (int i = 0; i < 10; i++) {
+            searchWorkload.record(usernameOnly);
+            searchWorkload.record(usernameAndAge);
+            searchWorkload.record(teamAndAge, Sort.by(Sort.Direction.DESC, "username"));
+        }
+        searchWorkload.record(new MemberSearchCond(), Sort.by("age")); // min-hits 미만
+
+        List<IndexRecommendation> recommendations = indexAdvisor.recommend();
+
+        // (username) 은 (username, age) 에 합쳐진다.
+        assertThat(recommendations)
+                .extracting(IndexRecommendation::getName)
+                .containsExactlyInAnyOrder(
+                        "idx_member_username_age",
+                        "idx_team_name",
+                        "idx_member_team_id_username_age");
+
+        IndexRecommendation usernameAge = recommendations.stream()
+                .filter(index -> index.getName().equals("idx_member_username_age"))
+                .findFirst()
+                .orElseThrow();
+        assertThat(usernameAge.getHits()).isEqualTo(20);
+        assertThat(usernameAge.getDdl()).isEqualTo("create index idx_member_username_age on member (username, age)");
+        assertThat(usernameAge.isCovered()).isFalse();
+    }
+
+    @Test
+    void applyDisabled() {
+        assertThatThrownBy(() -> indexAdvisor.apply())
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,63 @@
+package pipiolo.querydsl.diagnostics;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.transaction.annotation.Transactional;
+import pipiolo.querydsl.entity.Member;
+import pipiolo.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+// 테스트에서는 querydsl.diagnostics.n-plus-one.mode=THROW
+@SpringBootTest
+@Transactional
+class NPlusOneGuardTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Test
+    void selectByIdLoop() {
+        List<Long> ids = persistMembers(11);
+
+        // id 단건 조회를 11번 (threshold = 10)
+        Throwable thrown = catchThrowable(() -> {
+            for (Long id : ids) {
+                em.find(Member.class, id);
+            }
+        });
+
+        assertThat(NestedExceptionUtils.getMostSpecificCause(thrown)).isInstanceOf(NPlusOneException.class);
+    }
+
+    @Test
+    void fetchJoin() {
+        persistMembers(11);
+
+        List<Member> members = em.createQuery("select m from Member m join fetch m.team", Member.class)
+                .getResultList();
+
+        assertThat(members).extracting(member -> member.getTeam().getName()).hasSize(11);
+    }
+
+    private List<Long> persistMembers(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Team team = new Team("team" + i);
+            Member member = new Member("member" + i, i, team);
+            em.persist(team);
+            em.persist(member);
+            ids.add(member.getId());
+        }
+        em.flush();
+        em.clear();
+        return ids;
+    }
+}
@@ -0,0 +1,64 @@
+package pipiolo.querydsl.diagnostics;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import pipiolo.querydsl.dto.MemberSearchCond;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchWorkloadTest {
+
+    SearchWorkload searchWorkload = new SearchWorkload(3);
+
+    @Test
+    void unknownSortPropertiesShareOneShape() {
+        MemberSearchCond condition = new MemberSearchCond();
+
+        for (int i = 0; i < 100; i++) {
+            searchWorkload.record(condition, Sort.by("random" + i));
+        }
+        searchWorkload.record(condition, Sort.by(Sort.Direction.DESC, "age").and(Sort.by("foo")));
+
+        assertThat(searchWorkload.snapshot()).hasSize(2);
+        assertThat(searchWorkload.snapshot().keySet())
+                .extracting(SearchShape::getSort)
+                .containsExactly(List.of(SearchShape.OTHER), List.of("age DESC", SearchShape.OTHER));
+        assertThat(searchWorkload.snapshot().values()).containsExactly(100L, 1L);
+    }
+
+    @Test
+    void tooManySortOrdersAreCut() {
+        Sort sort = Sort.by("age", "username", "id", "age", "username");
+
+        SearchShape shape = SearchShape.of(new MemberSearchCond(), sort);
+
+        assertThat(shape.getSort()).hasSize(SearchShape.MAX_SORT_ORDERS + 1).endsWith(SearchShape.OTHER);
+        assertThat(shape.getSortProperties()).containsExactly("age", "username", "id", SearchShape.OTHER);
+    }
+
+    @Test
+    void shapesAreCapped() {
+        MemberSearchCond username = new MemberSearchCond();
+        username.setUsername("member1");
+        MemberSearchCond teamName = new MemberSearchCond();
+        teamName.setTeamName("teamA");
+        MemberSearchCond ageRange = new MemberSearchCond();
+        ageRange.setAgeGoe(10);
+
+        searchWorkload.record(username);
+        searchWorkload.record(teamName);
+        searchWorkload.record(ageRange);
+        searchWorkload.record(new MemberSearchCond()); // 4번째 모양 -> 상한 초과
+        searchWorkload.record(username);               // 이미 있는 모양은 계속 센다.
+
+        assertThat(searchWorkload.snapshot()).hasSize(3);
+        assertThat(searchWorkload.getOverflow()).isEqualTo(1);
+        assertThat(searchWorkload.snapshot().values()).containsExactly(2L, 1L, 1L);
+
+        searchWorkload.clear();
+        assertThat(searchWorkload.snapshot()).isEmpty();
+        assertThat(searchWorkload.getOverflow()).isZero();
+    }
+}
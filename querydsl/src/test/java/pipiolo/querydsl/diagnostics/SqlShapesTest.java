@@ -0,0 +1,24 @@
+package pipiolo.querydsl.diagnostics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlShapesTest {
+
+    @Test
+    void normalize() {
+        String sql = "/* select m from Member m where m.age >= 20 */ select member0_.member_id as member_i1_1_\n" +
+                "  from member member0_ where member0_.age>=20 and member0_.username='member''1'";
+
+        assertThat(SqlShapes.normalize(sql))
+                .isEqualTo("select member0_.member_id as member_i1_1_ from member member0_ where member0_.age>=? and member0_.username=?");
+    }
+
+    @Test
+    void normalizeInList() {
+        assertThat(SqlShapes.normalize("select * from team where team_id in (?, ?, ?)"))
+                .isEqualTo(SqlShapes.normalize("select * from team where team_id in (1, 2)"))
+                .isEqualTo("select * from team where team_id in (?)");
+    }
+}
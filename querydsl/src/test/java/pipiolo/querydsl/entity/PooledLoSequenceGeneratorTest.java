@@ -0,0 +1,65 @@
+package pipiolo.querydsl.entity;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@Transactional
+@SpringBootTest
+class PooledLoSequenceGeneratorTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Value("${spring.jpa.properties.querydsl.id.block-size:" + PooledLoSequenceGenerator.DEFAULT_BLOCK_SIZE + "}")
+    int blockSize;
+
+    @Test
+    void idsAreUniqueAndIncreasingAcrossBlocks() {
+        Team team = new Team("teamA");
+        em.persist(team);
+
+        // 블록 두 개를 넘게 쓴다. -> 시퀀스를 최소 두 번 더 부른다.
+        int count = blockSize * 2 + 1;
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Member member = new Member("member" + i, i, team);
+            em.persist(member);
+            ids.add(member.getId()); // persist 시점에 id 가 정해진다.
+        }
+        em.flush();
+
+        assertThat(ids).doesNotContainNull()
+                .doesNotHaveDuplicates()
+                .isSorted();
+        // 다른 곳에서 시퀀스를 쓰지 않으면 블록 경계를 넘어도 빈 번호 없이 이어진다.
+        assertThat(ids.get(count - 1) - ids.get(0)).isEqualTo(count - 1);
+
+        Long saved = em.createQuery("select count(m) from Member m where m.id in :ids", Long.class)
+                .setParameter("ids", ids)
+                .getSingleResult();
+        assertThat(saved).isEqualTo(count);
+    }
+
+    @Test
+    void teamIdsAreUniqueAcrossBlocks() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < blockSize + 1; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            ids.add(team.getId());
+        }
+
+        assertThat(ids).doesNotContainNull()
+                .doesNotHaveDuplicates()
+                .isSorted();
+    }
+}
@@ -0,0 +1,132 @@
+package pipiolo.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// 동시 카운트 경로만 본다. DB 대신 카운트 함수가 값을 돌려주거나, 막히거나, 실패한다.
+class CountQueryExecutorTest {
+
+    EntityManagerFactory emf = mockEntityManagerFactory();
+    CountQueryExecutor executor = new CountQueryExecutor(emf, true, 1, 10); // 카운트 스레드 1개
+
+    @AfterEach
+    void afterEach() {
+        executor.shutdown();
+    }
+
+    @Test
+    void countIsUsed() {
+        JPAQueryFactory queryFactory = mock(JPAQueryFactory.class);
+
+        // 2번째 페이지가 꽉 찼다 -> 전체 건수를 알려면 카운트가 필요하다.
+        Page<String> page = executor.getPage(queryFactory, PageRequest.of(1, 2),
+                () -> List.of("member3", "member4"),
+                countQueryFactory -> {
+                    assertThat(countQueryFactory).isNotSameAs(queryFactory); // 별도 EntityManager
+                    return 10L;
+                });
+
+        assertThat(page.getTotalElements()).isEqualTo(10);
+        assertThat(page.getContent()).containsExactly("member3", "member4");
+    }
+
+    @Test
+    void countIsCancelledWhenNotNeeded() throws Exception {
+        // 하나뿐인 카운트 스레드를 다른 요청의 카운트로 막아둔다.
+        CountDownLatch busy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Page<String>> other = CompletableFuture.supplyAsync(() ->
+                executor.getPage(null, PageRequest.of(1, 1), () -> List.of("member2"), countQueryFactory -> {
+                    busy.countDown();
+                    await(release);
+                    return 5L;
+                }));
+        assertThat(busy.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // 첫 페이지가 덜 찼다 -> 카운트가 필요 없다. 큐에서 기다리던 카운트는 취소된다.
+        AtomicBoolean counted = new AtomicBoolean();
+        Page<String> page = executor.getPage(null, PageRequest.of(0, 10), () -> List.of("member1"), countQueryFactory -> {
+            counted.set(true);
+            return 100L;
+        });
+        assertThat(page.getTotalElements()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(other.get(5, TimeUnit.SECONDS).getTotalElements()).isEqualTo(5);
+
+        // 스레드는 큐 순서대로 실행한다. -> 이 카운트가 끝났다면 취소된 카운트는 이미 지나갔다.
+        Page<String> after = executor.getPage(null, PageRequest.of(1, 1), () -> List.of("member2"), countQueryFactory -> 2L);
+        assertThat(after.getTotalElements()).isEqualTo(2);
+        assertThat(counted.get()).isFalse();
+    }
+
+    @Test
+    void knownCountNeverReachesExecutor() {
+        // 마지막 페이지 + 캐시된 카운트 -> 스레드 풀에 넘기지 않고, 별도 커넥션도 열지 않는다.
+        Page<String> page = executor.getPage(null, PageRequest.of(1, 2), () -> List.of("member3"),
+                () -> OptionalLong.of(3L),
+                countQueryFactory -> {
+                    throw new AssertionError("count query must not run");
+                });
+
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(executor.submittedCount()).isZero();
+        verify(emf, never()).createEntityManager();
+    }
+
+    @Test
+    void knownCountIsUsedWhenNeeded() {
+        // 2번째 페이지가 꽉 찼다 -> 카운트가 필요하다. 아는 값을 그대로 쓴다.
+        Page<String> page = executor.getPage(null, PageRequest.of(1, 2), () -> List.of("member3", "member4"),
+                () -> OptionalLong.of(10L),
+                countQueryFactory -> {
+                    throw new AssertionError("count query must not run");
+                });
+
+        assertThat(page.getTotalElements()).isEqualTo(10);
+        assertThat(executor.submittedCount()).isZero();
+    }
+
+    @Test
+    void countExceptionIsPropagated() {
+        assertThatThrownBy(() -> executor.getPage(null, PageRequest.of(1, 2), () -> List.of("member3", "member4"),
+                countQueryFactory -> {
+                    throw new IllegalStateException("count failed");
+                }))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("count failed");
+    }
+
+    private static EntityManagerFactory mockEntityManagerFactory() {
+        EntityManagerFactory emf = mock(EntityManagerFactory.class);
+        when(emf.createEntityManager()).thenAnswer(invocation -> mock(EntityManager.class));
+        return emf;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
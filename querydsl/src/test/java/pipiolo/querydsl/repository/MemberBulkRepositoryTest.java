@@ -0,0 +1,114 @@
+package pipiolo.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pipiolo.querydsl.dto.BulkChangeResult;
+import pipiolo.querydsl.entity.Member;
+import pipiolo.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static pipiolo.querydsl.entity.QMember.member;
+
+// 청크마다 커밋하기 때문에 @Transactional 롤백을 쓰지 않고 직접 지운다.
+@SpringBootTest(properties = "querydsl.bulk.chunk-size=2")
+class MemberBulkRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberBulkRepository memberBulkRepository;
+
+    List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void beforeEach() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            for (int i = 1; i <= 5; i++) {
+                Member member = new Member("member" + i, i * 10, teamA);
+                em.persist(member);
+                ids.add(member.getId());
+            }
+        });
+    }
+
+    @AfterEach
+    void afterEach() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m").executeUpdate();
+            em.createQuery("delete from Team t").executeUpdate();
+        });
+    }
+
+    @Test
+    void update() {
+        // member1 ~ member4 -> 청크 2개
+        BulkChangeResult result = memberBulkRepository.update(
+                member.age.lt(45),
+                clause -> clause.set(member.username, "비회원"));
+
+        assertThat(result.getCount()).isEqualTo(4);
+        assertThat(result.getChunks()).hasSize(2);
+        assertThat(result.getChunks().get(0).getFromId()).isEqualTo(ids.get(0));
+        assertThat(result.getChunks().get(1).getToId()).isEqualTo(ids.get(3));
+    }
+
+    @Test
+    void delete() {
+        BulkChangeResult result = memberBulkRepository.delete(member.age.gt(15));
+
+        assertThat(result.getCount()).isEqualTo(4);
+        assertThat(result.getChunks()).hasSize(2);
+
+        Long remaining = transactionTemplate.execute(status -> em
+                .createQuery("select count(m) from Member m", Long.class)
+                .getSingleResult());
+        assertThat(remaining).isEqualTo(1);
+    }
+
+    // OSIV 처럼 요청 동안 EntityManager 가 바인딩되어 있는 경우 -> 바뀐 회원만 영속성 컨텍스트에서 빠진다.
+    @Test
+    void evictChangedMembersOnly() {
+        TransactionSynchronizationManager.bindResource(emf, new EntityManagerHolder(emf.createEntityManager()));
+        try {
+            Member member1 = em.find(Member.class, ids.get(0));
+            Member member5 = em.find(Member.class, ids.get(4));
+
+            memberBulkRepository.update(member.age.lt(15), clause -> clause.set(member.username, "비회원"));
+
+            assertThat(em.contains(member1)).isFalse();
+            assertThat(em.contains(member5)).isTrue();
+            assertThat(em.find(Member.class, ids.get(0)).getUsername()).isEqualTo("비회원");
+        } finally {
+            EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager.unbindResource(emf);
+            holder.getEntityManager().close();
+        }
+    }
+
+    @Test
+    void rejectInsideTransaction() {
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status ->
+                memberBulkRepository.delete(member.age.gt(15))))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
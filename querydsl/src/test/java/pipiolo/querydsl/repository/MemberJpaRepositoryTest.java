@@ -2,14 +2,18 @@ package pipiolo.querydsl.repository;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
+import pipiolo.querydsl.dto.BulkInsertResult;
 import pipiolo.querydsl.dto.MemberSearchCond;
 import pipiolo.querydsl.dto.MemberTeamDto;
 import pipiolo.querydsl.entity.Member;
 import pipiolo.querydsl.entity.Team;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -24,6 +28,9 @@ class MemberJpaRepositoryTest {
     @Autowired
     MemberJpaRepository memberJpaRepository;
 
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size}")
+    int batchSize;
+
     @Test
     void basicTest() {
         Member member = new Member("member1", 10);
@@ -114,4 +121,97 @@ class MemberJpaRepositoryTest {
         assertThat(result).extracting("username")
                 .containsExactly("member4");
     }
-}
\ No newline at end of file
+
+    @Test
+    void searchStreamTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+
+        em.persist(teamA);
+        em.persist(teamB);
+
+        // fetchSize(1000) 보다 많이 넣어서 커서를 여러 번 읽게 한다.
+        int total = 2500;
+        for (int i = 0; i < total; i++) {
+            em.persist(new Member("member" + i, i % 100, i % 2 == 0 ? teamA : teamB));
+        }
+        em.flush();
+        em.clear();
+
+        // 조건이 없으면 전부 흘려보낸다.
+        List<MemberTeamDto> all = new ArrayList<>();
+        long count = memberJpaRepository.searchStream(new MemberSearchCond(), all::add);
+
+        assertThat(count).isEqualTo(total);
+        assertThat(all).hasSize(total);
+        assertThat(all).extracting("memberId").doesNotHaveDuplicates();
+
+        // 조건이 적용된다. teamB(홀수) 이면서 나이 90 이상 -> 91, 93, 95, 97, 99 가 25 번씩
+        MemberSearchCond condition = new MemberSearchCond();
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(90);
+
+        List<MemberTeamDto> result = new ArrayList<>();
+        long filtered = memberJpaRepository.searchStream(condition, result::add);
+
+        assertThat(filtered).isEqualTo(125);
+        assertThat(result).hasSize(125);
+        assertThat(result).allSatisfy(dto -> {
+            assertThat(dto.getTeamName()).isEqualTo("teamB");
+            assertThat(dto.getAge()).isGreaterThanOrEqualTo(90);
+        });
+    }
+
+    @Test
+    void saveAllTest() {
+        int total = batchSize * 2 + batchSize / 2; // 배치 2번 + 남은 것
+
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            members.add(new Member("member" + i, i));
+        }
+
+        BulkInsertResult result = memberJpaRepository.saveAll(members);
+
+        assertThat(result.getCount()).isEqualTo(total);
+        assertThat(result.getElapsedMillis()).isGreaterThanOrEqualTo(0);
+        assertThat(result.getRowsPerSecond()).isGreaterThan(0);
+
+        Long rows = em.createQuery("select count(m) from Member m", Long.class).getSingleResult();
+        assertThat(rows).isEqualTo(total);
+    }
+
+    // 배치 크기만큼 저장할 때마다 영속성 컨텍스트가 비워진다. -> 엔티티가 쌓이지 않는다.
+    @Test
+    void saveAllClearsPersistenceContextPerBatch() {
+        List<Member> saved = new ArrayList<>();
+        List<Boolean> firstMemberManaged = new ArrayList<>(); // n 번째 회원을 넘겨줄 때 첫 회원이 아직 영속 상태인가?
+
+        Iterable<Member> members = () -> new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return saved.size() < batchSize + 1;
+            }
+
+            @Override
+            public Member next() {
+                if (!saved.isEmpty()) {
+                    firstMemberManaged.add(em.contains(saved.get(0)));
+                }
+                Member member = new Member("member" + saved.size(), 10);
+                saved.add(member);
+                return member;
+            }
+        };
+
+        memberJpaRepository.saveAll(members);
+
+        // 2 ~ batchSize 번째를 넘길 때까지는 첫 배치가 영속성 컨텍스트에 있다.
+        assertThat(firstMemberManaged.subList(0, batchSize - 1)).containsOnly(true);
+        // batchSize + 1 번째를 넘길 때는 첫 배치가 flush + clear 된 뒤다.
+        assertThat(firstMemberManaged.get(batchSize - 1)).isFalse();
+        // 마지막에도 비운다.
+        assertThat(saved).noneMatch(em::contains);
+        assertThat(saved).allMatch(member -> member.getId() != null);
+    }
+}
@@ -0,0 +1,75 @@
+package pipiolo.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import pipiolo.querydsl.dto.MemberSearchCond;
+import pipiolo.querydsl.dto.MemberTeamDto;
+import pipiolo.querydsl.entity.Member;
+import pipiolo.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberQueryRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    @BeforeEach
+    void beforeEach() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("member5", 50));
+    }
+
+    @Test
+    void searchByTemplate() {
+        MemberSearchCond condition = new MemberSearchCond();
+        condition.setAgeGoe(35);
+        condition.setAgeLoe(40);
+        condition.setTeamName("teamB");
+
+        List<MemberTeamDto> result = memberQueryRepository.searchByTemplate(condition);
+
+        assertThat(result).extracting("username")
+                .containsExactly("member4");
+        assertThat(result).extracting("teamName")
+                .containsExactly("teamB");
+    }
+
+    @Test
+    void searchByTemplate_sameAsSearch() {
+        MemberSearchCond noCondition = new MemberSearchCond();
+        MemberSearchCond username = new MemberSearchCond();
+        username.setUsername("member5");
+        MemberSearchCond ageRange = new MemberSearchCond();
+        ageRange.setAgeGoe(20);
+        ageRange.setAgeLoe(50);
+
+        // 같은 모양을 두 번 -> 두 번째는 캐시된 템플릿
+        for (int i = 0; i < 2; i++) {
+            for (MemberSearchCond condition : List.of(noCondition, username, ageRange)) {
+                assertThat(memberQueryRepository.searchByTemplate(condition))
+                        .containsExactlyInAnyOrderElementsOf(memberQueryRepository.search(condition));
+            }
+        }
+    }
+}
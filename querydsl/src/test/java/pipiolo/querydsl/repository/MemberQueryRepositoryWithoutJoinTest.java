@@ -0,0 +1,109 @@
+package pipiolo.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import pipiolo.querydsl.dto.MemberSearchCond;
+import pipiolo.querydsl.dto.MemberTeamDto;
+import pipiolo.querydsl.entity.Member;
+import pipiolo.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// searchPageWithoutJoin 은 TeamNameCache(커밋된 팀만 안다)를 쓰기 때문에 @Transactional 롤백을 쓰지 않고 직접 지운다.
+@SpringBootTest
+class MemberQueryRepositoryWithoutJoinTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    @BeforeEach
+    void beforeEach() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(new Member("member4", 40, teamB));
+            em.persist(new Member("member5", 50));
+        });
+    }
+
+    @AfterEach
+    void afterEach() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m").executeUpdate();
+            em.createQuery("delete from Team t").executeUpdate();
+        });
+    }
+
+    @Test
+    void searchPageWithoutJoin() {
+        MemberSearchCond condition = new MemberSearchCond();
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(35);
+
+        Page<MemberTeamDto> result = memberQueryRepository.searchPageWithoutJoin(condition, PageRequest.of(0, 10));
+
+        assertThat(result.getTotalElements()).isEqualTo(1);
+        assertThat(result.getContent()).extracting("username").containsExactly("member4");
+        assertThat(result.getContent()).extracting("teamName").containsExactly("teamB");
+
+        // 팀 조건이 없으면 팀 없는 회원도 나온다. 팀 이름은 캐시에서 채운다.
+        Page<MemberTeamDto> all = memberQueryRepository.searchPageWithoutJoin(new MemberSearchCond(), PageRequest.of(0, 3));
+        assertThat(all.getTotalElements()).isEqualTo(5);
+        assertThat(all.getContent()).hasSize(3);
+        assertThat(memberQueryRepository.searchPageWithoutJoin(new MemberSearchCond(), PageRequest.of(0, 10)).getContent())
+                .extracting("username", "teamName")
+                .contains(
+                        tuple("member1", "teamA"),
+                        tuple("member5", null));
+    }
+
+    @Test
+    void searchPageWithoutJoin_unknownTeam() {
+        MemberSearchCond condition = new MemberSearchCond();
+        condition.setTeamName("teamC");
+
+        Page<MemberTeamDto> result = memberQueryRepository.searchPageWithoutJoin(condition, PageRequest.of(0, 10));
+
+        assertThat(result.getContent()).isEmpty();
+        assertThat(result.getTotalElements()).isEqualTo(0);
+    }
+
+    @Test
+    void searchPageWithoutJoin_seesCommittedNewTeam() {
+        MemberSearchCond condition = new MemberSearchCond();
+        condition.setTeamName("teamC");
+        assertThat(memberQueryRepository.searchPageWithoutJoin(condition, PageRequest.of(0, 10)).getContent()).isEmpty();
+
+        // 캐시가 올라간 뒤에 팀이 추가돼도 커밋되면 보인다.
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamC = new Team("teamC");
+            em.persist(teamC);
+            em.persist(new Member("member6", 60, teamC));
+        });
+
+        Page<MemberTeamDto> result = memberQueryRepository.searchPageWithoutJoin(condition, PageRequest.of(0, 10));
+        assertThat(result.getContent()).extracting("username", "teamName")
+                .containsExactly(tuple("member6", "teamC"));
+    }
+}
@@ -5,7 +5,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.transaction.annotation.Transactional;
+import pipiolo.querydsl.dto.CursorSlice;
 import pipiolo.querydsl.dto.MemberSearchCond;
 import pipiolo.querydsl.dto.MemberTeamDto;
 import pipiolo.querydsl.entity.Member;
@@ -15,6 +17,7 @@ import javax.persistence.EntityManager;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static pipiolo.querydsl.entity.QMember.member;
 
 @SpringBootTest
@@ -128,6 +131,154 @@ class MemberRepositoryTest {
                 .containsExactly("member1", "member2", "member3");
     }
 
+    @Test
+    void searchPageWindowCountTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, teamB);
+        Member member4 = new Member("member4", 40, teamB);
+
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+
+        em.flush();
+
+        MemberSearchCond condition = new MemberSearchCond();
+        condition.setAgeGoe(20);
+
+        Page<MemberTeamDto> twoQuery = memberRepository.searchPage(condition, PageRequest.of(1, 2), PaginationStrategy.TWO_QUERY);
+        Page<MemberTeamDto> windowCount = memberRepository.searchPage(condition, PageRequest.of(1, 2), PaginationStrategy.WINDOW_COUNT);
+
+        assertThat(windowCount.getTotalElements()).isEqualTo(twoQuery.getTotalElements()).isEqualTo(3);
+        assertThat(windowCount.getContent()).hasSize(1);
+
+        // 빈 페이지 -> 카운트 쿼리로 전체 건수를 구한다.
+        Page<MemberTeamDto> empty = memberRepository.searchPage(condition, PageRequest.of(5, 2), PaginationStrategy.WINDOW_COUNT);
+        assertThat(empty.getContent()).isEmpty();
+        assertThat(empty.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    void searchPageDeferredJoinTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, teamB);
+        Member member4 = new Member("member4", 40, teamB);
+
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+
+        em.flush();
+
+        MemberSearchCond condition = new MemberSearchCond();
+        condition.setAgeGoe(20);
+
+        // 나이 내림차순 -> member4, member3 / member2
+        PageRequest pageRequest = PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "age"));
+        Page<MemberTeamDto> result = memberRepository.searchPage(condition, pageRequest, PaginationStrategy.DEFERRED_JOIN);
+
+        assertThat(result.getTotalElements()).isEqualTo(3);
+        assertThat(result.getContent()).extracting("username").containsExactly("member4", "member3");
+        assertThat(result.getContent()).extracting("teamName").containsExactly("teamB", "teamB");
+
+        // 팀 이름 조건이 있으면 1단계에서도 team 을 조인한다.
+        condition.setTeamName("teamA");
+        Page<MemberTeamDto> teamA2 = memberRepository.searchPage(condition, PageRequest.of(0, 2), PaginationStrategy.DEFERRED_JOIN);
+        assertThat(teamA2.getContent()).extracting("username").containsExactly("member2");
+    }
+
+    @Test
+    void searchPageSortTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 30, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+
+        em.flush();
+
+        MemberSearchCond condition = new MemberSearchCond();
+
+        // 나이 내림차순, 같은 나이는 member.id 순 -> member4, member2 / member3, member1
+        PageRequest pageRequest = PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "age"));
+        for (PaginationStrategy strategy : PaginationStrategy.values()) {
+            Page<MemberTeamDto> result = memberRepository.searchPage(condition, pageRequest, strategy);
+
+            assertThat(result.getContent()).as(strategy.name()).extracting("username")
+                    .containsExactly("member3", "member1");
+            assertThat(result.getTotalElements()).as(strategy.name()).isEqualTo(4);
+        }
+
+        // 화이트리스트에 없는 필드 -> 쿼리를 보내기 전에 InvalidSortException
+        PageRequest unknown = PageRequest.of(0, 2, Sort.by("foo"));
+        PageRequest teamName = PageRequest.of(0, 2, Sort.by("team.name"));
+        for (PaginationStrategy strategy : PaginationStrategy.values()) {
+            assertThatThrownBy(() -> memberRepository.searchPage(condition, unknown, strategy))
+                    .isInstanceOf(InvalidSortException.class);
+            assertThatThrownBy(() -> memberRepository.searchPage(condition, teamName, strategy))
+                    .isInstanceOf(InvalidSortException.class);
+        }
+    }
+
+    @Test
+    void searchSliceTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, teamB);
+        Member member4 = new Member("member4", 40, teamB);
+
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+
+        MemberSearchCond condition = new MemberSearchCond();
+
+        CursorSlice<MemberTeamDto> first = memberRepository.searchSlice(condition, null, 3);
+        assertThat(first.getContent()).extracting("username")
+                .containsExactly("member1", "member2", "member3");
+        assertThat(first.hasPrev()).isFalse();
+        assertThat(first.hasNext()).isTrue();
+
+        CursorSlice<MemberTeamDto> second = memberRepository.searchSlice(condition, first.getNextCursor(), 3);
+        assertThat(second.getContent()).extracting("username")
+                .containsExactly("member4");
+        assertThat(second.hasNext()).isFalse();
+
+        CursorSlice<MemberTeamDto> back = memberRepository.searchSlice(condition, second.getPrevCursor(), 3);
+        assertThat(back.getContent()).extracting("username")
+                .containsExactly("member1", "member2", "member3");
+        assertThat(back.hasPrev()).isFalse();
+        assertThat(back.hasNext()).isTrue();
+    }
+
     @Test
     void querydslPredicateExecutorTest() {
         Team teamA = new Team("teamA");
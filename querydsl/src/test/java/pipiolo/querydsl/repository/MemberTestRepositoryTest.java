@@ -0,0 +1,93 @@
+package pipiolo.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import pipiolo.querydsl.dto.MemberSearchCond;
+import pipiolo.querydsl.entity.Member;
+import pipiolo.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberTestRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    @BeforeEach
+    void beforeEach() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("member5", 50));
+    }
+
+    // 자동으로 만든 카운트 쿼리와 직접 작성한 카운트 쿼리의 결과가 같아야 한다.
+    @Test
+    void applyPagination_derivedCount() {
+        MemberSearchCond noCondition = new MemberSearchCond();  // team 조인 제거
+        MemberSearchCond teamCondition = new MemberSearchCond(); // team 조인 유지
+        teamCondition.setTeamName("teamB");
+
+        PageRequest pageRequest = PageRequest.of(1, 2); // 2번째 페이지 -> 카운트 쿼리 실행
+
+        for (MemberSearchCond condition : new MemberSearchCond[]{noCondition, teamCondition}) {
+            Page<Member> derived = memberTestRepository.applyPagination(condition, pageRequest);
+            Page<Member> handWritten = memberTestRepository.applyPaginationV2(condition, pageRequest);
+
+            assertThat(derived.getTotalElements()).isEqualTo(handWritten.getTotalElements());
+            assertThat(derived.getContent()).isEqualTo(handWritten.getContent());
+        }
+
+        assertThat(memberTestRepository.applyPagination(noCondition, pageRequest).getTotalElements()).isEqualTo(5);
+        assertThat(memberTestRepository.applyPagination(teamCondition, pageRequest).getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    void applyPagination_derivedCountWithParam() {
+        // 2번째 페이지 -> 카운트 쿼리 실행, team 조인은 제거되고 Param 바인딩은 유지
+        Page<Member> page = memberTestRepository.applyPaginationByAgeParam(20, PageRequest.of(1, 2));
+
+        assertThat(page.getTotalElements()).isEqualTo(4);
+        assertThat(page.getContent()).hasSize(2);
+    }
+
+    @Test
+    void preloadTeams() {
+        em.flush();
+        em.clear();
+
+        Page<Member> page = memberTestRepository.applyPagination(new MemberSearchCond(), PageRequest.of(0, 5));
+        PersistenceUnitUtil util = em.getEntityManagerFactory().getPersistenceUnitUtil();
+
+        assertThat(page.getContent())
+                .filteredOn(member -> member.getTeam() != null)
+                .allMatch(member -> !util.isLoaded(member.getTeam()));
+
+        memberTestRepository.preloadTeams(page.getContent());
+
+        assertThat(page.getContent())
+                .filteredOn(member -> member.getTeam() != null)
+                .hasSize(4)
+                .allMatch(member -> util.isLoaded(member.getTeam()));
+    }
+}
@@ -0,0 +1,103 @@
+package pipiolo.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import pipiolo.querydsl.diagnostics.QueryContext;
+import pipiolo.querydsl.dto.TeamRosterDto;
+import pipiolo.querydsl.entity.Member;
+import pipiolo.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class TeamQueryRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TeamQueryRepository teamQueryRepository;
+
+    @BeforeEach
+    void beforeEach() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        Team teamC = new Team("teamC");
+
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(teamC);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamA));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("member5", 50, teamC));
+
+        // Team.members 는 연관관계 주인이 아니다. -> DB 에서 다시 읽어야 채워진다.
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void searchRoster() {
+        Page<TeamRosterDto> result = teamQueryRepository.searchRoster(PageRequest.of(0, 2), null);
+
+        assertThat(result.getTotalElements()).isEqualTo(3);
+        assertThat(result.getContent()).extracting("teamName").containsExactly("teamA", "teamB");
+        assertThat(result.getContent().get(0).getMembers()).extracting("username")
+                .containsExactly("member1", "member2", "member3");
+        assertThat(result.getContent().get(0).getMemberCount()).isEqualTo(3);
+    }
+
+    @Test
+    void searchRosterWithMemberLimit() {
+        Page<TeamRosterDto> result = teamQueryRepository.searchRoster(PageRequest.of(0, 3), 2);
+
+        TeamRosterDto teamA = result.getContent().get(0);
+        assertThat(teamA.getMembers()).extracting("username").containsExactly("member1", "member2");
+        assertThat(teamA.getMemberCount()).isEqualTo(3);
+
+        assertThat(result.getContent().get(1).getMembers()).extracting("username").containsExactly("member4");
+        assertThat(result.getContent().get(2).getMembers()).extracting("username").containsExactly("member5");
+    }
+
+    @Test
+    void searchRosterWithMemberLimit_queryCountDoesNotGrowWithTeams() {
+        QueryContext context = QueryContext.open();
+        try {
+            teamQueryRepository.searchRoster(PageRequest.of(0, 10), 2);
+
+            // 팀 id / 팀 / 팀별 회원 수 / 회원 -> 팀 수와 상관없이 4번 (마지막 페이지라 카운트 쿼리는 없다.)
+            assertThat(context.getStatements()).isEqualTo(4);
+        } finally {
+            QueryContext.close();
+        }
+    }
+
+    @Test
+    void searchRosterWithMemberLimit_emptyTeamAndZeroLimit() {
+        em.persist(new Team("teamD")); // 회원 없는 팀
+        em.flush();
+        em.clear();
+
+        Page<TeamRosterDto> result = teamQueryRepository.searchRoster(PageRequest.of(0, 4), 5);
+        assertThat(result.getContent()).extracting("teamName").containsExactly("teamA", "teamB", "teamC", "teamD");
+        assertThat(result.getContent().get(0).getMembers()).hasSize(3); // 팀 크기보다 limit 이 크다.
+        assertThat(result.getContent().get(3).getMembers()).isEmpty();
+        assertThat(result.getContent().get(3).getMemberCount()).isZero();
+
+        // 0 이면 회원 수만 채운다.
+        Page<TeamRosterDto> countsOnly = teamQueryRepository.searchRoster(PageRequest.of(0, 4), 0);
+        assertThat(countsOnly.getContent()).allMatch(roster -> roster.getMembers().isEmpty());
+        assertThat(countsOnly.getContent()).extracting("memberCount").containsExactly(3L, 1L, 1L, 0L);
+    }
+}
@@ -0,0 +1,78 @@
+package pipiolo.querydsl.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import pipiolo.querydsl.dto.MemberImportResult;
+import pipiolo.querydsl.entity.Member;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 청크마다 커밋하기 때문에 @Transactional 롤백을 쓰지 않고 직접 지운다.
+@SpringBootTest
+class MemberImportServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberImportService memberImportService;
+
+    @AfterEach
+    void afterEach() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m").executeUpdate();
+            em.createQuery("delete from Team t").executeUpdate();
+        });
+    }
+
+    @Test
+    void importCsv() throws Exception {
+        String csv = "username,age,teamName\n" +
+                "member1,10,teamA\n" +
+                "member2,20,teamA\n" +
+                "member3,abc,teamB\n" + // 나이가 숫자가 아님
+                "member4,40,teamB\n" +
+                "member5,50\n";
+
+        MemberImportResult result = memberImportService.importCsv(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(result.getImported()).isEqualTo(4);
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(result.getCreatedTeams()).isEqualTo(2);
+
+        List<Member> members = transactionTemplate.execute(status -> em
+                .createQuery("select m from Member m left join fetch m.team order by m.username", Member.class)
+                .getResultList());
+        assertThat(members).extracting("username")
+                .containsExactly("member1", "member2", "member4", "member5");
+        assertThat(members.get(0).getTeam().getId()).isEqualTo(members.get(1).getTeam().getId());
+        assertThat(members.get(3).getTeam()).isNull();
+    }
+
+    @Test
+    void importNdjson() throws Exception {
+        String ndjson = "{\"username\": \"member1\", \"age\": 10, \"teamName\": \"teamA\"}\n" +
+                "{\"username\": \"member2\"}\n" + // 나이 없음
+                "not json\n" +
+                "{\"username\": \"member3\", \"age\": 30}\n";
+
+        MemberImportResult result = memberImportService.importNdjson(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getFailed()).isEqualTo(2);
+        assertThat(result.getCreatedTeams()).isEqualTo(1);
+    }
+}
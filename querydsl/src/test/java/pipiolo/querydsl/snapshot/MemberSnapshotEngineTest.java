@@ -0,0 +1,121 @@
+package pipiolo.querydsl.snapshot;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import pipiolo.querydsl.dto.MemberSearchCond;
+import pipiolo.querydsl.dto.MemberTeamDto;
+import pipiolo.querydsl.entity.Member;
+import pipiolo.querydsl.entity.Team;
+import pipiolo.querydsl.repository.MemberBulkRepository;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static pipiolo.querydsl.entity.QMember.member;
+
+// 커밋된 변경만 반영되므로 @Transactional 롤백을 쓰지 않고 직접 지운다.
+@SpringBootTest(properties = "querydsl.snapshot.enabled=true")
+class MemberSnapshotEngineTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberSnapshotEngine snapshotEngine;
+
+    @Autowired
+    MemberBulkRepository memberBulkRepository;
+
+    Long member1Id;
+    Long member4Id;
+    Long teamAId;
+
+    @BeforeEach
+    void beforeEach() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+
+            Member member1 = new Member("member1", 10, teamA);
+            Member member4 = new Member("member4", 40, teamB);
+            em.persist(member1);
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(member4);
+            em.persist(new Member("member5", 50));
+
+            member1Id = member1.getId();
+            member4Id = member4.getId();
+            teamAId = teamA.getId();
+        });
+    }
+
+    @AfterEach
+    void afterEach() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m").executeUpdate();
+            em.createQuery("delete from Team t").executeUpdate();
+        });
+        snapshotEngine.rebuild();
+    }
+
+    @Test
+    void searchPage() {
+        MemberSearchCond condition = new MemberSearchCond();
+        condition.setAgeGoe(20);
+        condition.setAgeLoe(40);
+
+        Page<MemberTeamDto> result = snapshotEngine.searchPage(condition, PageRequest.of(0, 2));
+
+        assertThat(result.getTotalElements()).isEqualTo(3);
+        assertThat(result.getContent()).extracting("username").containsExactly("member2", "member3");
+
+        condition.setTeamName("teamB");
+        assertThat(snapshotEngine.searchPage(condition, PageRequest.of(0, 10)).getContent())
+                .extracting("username").containsExactly("member3", "member4");
+
+        MemberSearchCond noTeam = new MemberSearchCond();
+        noTeam.setUsername("member5");
+        MemberTeamDto member5 = snapshotEngine.searchPage(noTeam, PageRequest.of(0, 10)).getContent().get(0);
+        assertThat(member5.getTeamId()).isNull();
+        assertThat(member5.getAge()).isEqualTo(50);
+    }
+
+    @Test
+    void updateFromEvents() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.find(Member.class, member4Id).changeTeam(em.find(Team.class, teamAId));
+            em.remove(em.find(Member.class, member1Id));
+        });
+
+        MemberSearchCond condition = new MemberSearchCond();
+        condition.setTeamName("teamA");
+        assertThat(snapshotEngine.searchPage(condition, PageRequest.of(0, 10)).getContent())
+                .extracting("username").containsExactly("member2", "member4");
+
+        // 벌크 연산 -> 바뀐 id 만 다시 읽는다.
+        memberBulkRepository.update(member.age.goe(40), clause -> clause.set(member.age, member.age.add(1)));
+
+        MemberSearchCond age = new MemberSearchCond();
+        age.setAgeGoe(41);
+        assertThat(snapshotEngine.searchPage(age, PageRequest.of(0, 10)).getContent())
+                .extracting("age").containsExactly(41, 51);
+
+        // 다시 만들어도 같다.
+        snapshotEngine.rebuild();
+        assertThat(snapshotEngine.size()).isEqualTo(4);
+        assertThat(snapshotEngine.searchPage(age, PageRequest.of(0, 10)).getContent())
+                .extracting("age").containsExactly(41, 51);
+    }
+}
@@ -0,0 +1,133 @@
+package pipiolo.querydsl.stats;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.QTuple;
+import org.junit.jupiter.api.Test;
+import pipiolo.querydsl.cache.TeamNameCache;
+import pipiolo.querydsl.dto.TeamStatsDto;
+import pipiolo.querydsl.entity.Member;
+import pipiolo.querydsl.entity.Team;
+import pipiolo.querydsl.event.EntityChangeEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static pipiolo.querydsl.entity.QMember.member;
+
+// DB 를 읽는 도중에 커밋된 변경이 사라지거나 두 번 반영되지 않는지
+class TeamStatisticsReloadTest {
+
+    static final QTuple ROW = Projections.tuple(member.id, member.team.id, member.age);
+
+    CountDownLatch loadStarted = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    // teamA(1) 에 20살 2명 -> 읽은 시점의 DB
+    List<Tuple> rows = new ArrayList<>(List.of(ROW.newInstance(1L, 1L, 20), ROW.newInstance(2L, 1L, 20)));
+
+    TeamStatistics teamStatistics = new TeamStatistics(() -> {
+        loadStarted.countDown();
+        await(release);
+        return rows;
+    }, mock(TeamNameCache.class));
+
+    @Test
+    void changeDuringRebuildIsReplayed() throws Exception {
+        CompletableFuture<Void> rebuild = CompletableFuture.runAsync(teamStatistics::rebuild);
+        assertThat(loadStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // 읽기 시작한 뒤에 커밋된 INSERT -> 읽은 결과에는 없다.
+        teamStatistics.onEntityChange(insert(3L, team(1L), 30));
+        release.countDown();
+        rebuild.get(5, TimeUnit.SECONDS);
+
+        TeamStatsDto teamA = teamStatistics.getStats().get(0);
+        assertThat(teamA.getCount()).isEqualTo(3);
+        assertThat(teamA.getAgeSum()).isEqualTo(70);
+        assertThat(teamA.getAgeMax()).isEqualTo(30);
+    }
+
+    @Test
+    void changeDuringReconcileIsNotLost() throws Exception {
+        release.countDown();
+        teamStatistics.rebuild();
+
+        CountDownLatch reconcileStarted = new CountDownLatch(1);
+        CountDownLatch reconcileRelease = new CountDownLatch(1);
+        loadStarted = reconcileStarted;
+        release = reconcileRelease;
+
+        CompletableFuture<Void> reconcile = CompletableFuture.runAsync(teamStatistics::reconcile);
+        assertThat(reconcileStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        teamStatistics.onEntityChange(insert(3L, team(2L), 40));
+        reconcileRelease.countDown();
+        reconcile.get(5, TimeUnit.SECONDS);
+
+        // 읽는 동안 들어온 변경이 읽은 결과로 덮이지 않는다.
+        List<TeamStatsDto> stats = teamStatistics.getStats();
+        assertThat(stats).extracting("teamId").containsExactly(1L, 2L);
+        assertThat(stats.get(0).getCount()).isEqualTo(2);
+        assertThat(stats.get(1).getCount()).isEqualTo(1);
+    }
+
+    @Test
+    void changeAlreadyLoadedIsNotCountedTwice() throws Exception {
+        CompletableFuture<Void> rebuild = CompletableFuture.runAsync(teamStatistics::rebuild);
+        assertThat(loadStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // 읽기 전에 커밋됐지만 이벤트는 읽기 시작한 뒤에 왔다. -> 읽은 결과에도 있고 다시 반영할 목록에도 있다.
+        rows.add(ROW.newInstance(3L, 1L, 30));
+        teamStatistics.onEntityChange(insert(3L, team(1L), 30));
+        release.countDown();
+        rebuild.get(5, TimeUnit.SECONDS);
+
+        List<TeamStatsDto> stats = teamStatistics.getStats();
+        assertThat(stats.get(0).getCount()).isEqualTo(3);
+        assertThat(stats.get(0).getAgeSum()).isEqualTo(70);
+
+        // DB 와 같다. -> reconcile 해도 바뀌지 않는다.
+        teamStatistics.reconcile();
+        assertThat(teamStatistics.getStats()).isEqualTo(stats);
+    }
+
+    @Test
+    void updateWithoutOldStateMovesMember() {
+        release.countDown();
+        teamStatistics.rebuild();
+
+        // merge 된 UPDATE 는 예전 값이 없다. -> 들고 있던 (팀, 나이)에서 뺀다.
+        teamStatistics.onEntityChange(new EntityChangeEvent(EntityChangeEvent.Type.UPDATE, Member.class, 2L, null,
+                new String[]{"age", "team", "username"}, new Object[]{25, team(2L), "member2"}, null));
+
+        List<TeamStatsDto> stats = teamStatistics.getStats();
+        assertThat(stats).extracting("teamId").containsExactly(1L, 2L);
+        assertThat(stats.get(0).getCount()).isEqualTo(1);
+        assertThat(stats.get(1).getAgeSum()).isEqualTo(25);
+    }
+
+    private static EntityChangeEvent insert(Long memberId, Team team, int age) {
+        return new EntityChangeEvent(EntityChangeEvent.Type.INSERT, Member.class, memberId, null,
+                new String[]{"age", "team", "username"}, new Object[]{age, team, "member"}, null);
+    }
+
+    private static Team team(Long id) {
+        Team team = new Team("team" + id);
+        team.setId(id);
+        return team;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
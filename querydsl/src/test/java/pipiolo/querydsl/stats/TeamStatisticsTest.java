@@ -0,0 +1,105 @@
+package pipiolo.querydsl.stats;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import pipiolo.querydsl.dto.TeamStatsDto;
+import pipiolo.querydsl.entity.Member;
+import pipiolo.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 커밋된 변경만 반영되므로 @Transactional 롤백을 쓰지 않고 직접 지운다.
+@SpringBootTest
+class TeamStatisticsTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    TeamStatistics teamStatistics;
+
+    Long teamAId;
+    Long teamBId;
+    Long member2Id;
+    Long member4Id;
+
+    @BeforeEach
+    void beforeEach() {
+        teamStatistics.rebuild();
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+
+            Member member2 = new Member("member2", 20, teamA);
+            Member member4 = new Member("member4", 40, teamB);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(member2);
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(member4);
+
+            teamAId = teamA.getId();
+            teamBId = teamB.getId();
+            member2Id = member2.getId();
+            member4Id = member4.getId();
+        });
+    }
+
+    @AfterEach
+    void afterEach() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m").executeUpdate();
+            em.createQuery("delete from Team t").executeUpdate();
+        });
+        teamStatistics.rebuild();
+    }
+
+    @Test
+    void insert() {
+        List<TeamStatsDto> stats = teamStatistics.getStats();
+
+        assertThat(stats).extracting("teamName").containsExactly("teamA", "teamB");
+        assertThat(stats.get(0).getCount()).isEqualTo(2);
+        assertThat(stats.get(0).getAgeAvg()).isEqualTo(15);
+        assertThat(stats.get(1).getAgeMin()).isEqualTo(30);
+        assertThat(stats.get(1).getAgeMax()).isEqualTo(40);
+    }
+
+    @Test
+    void changeTeamAndDelete() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Member member2 = em.find(Member.class, member2Id);
+            member2.changeTeam(em.find(Team.class, teamBId)); // teamA -> teamB
+            member2.setAge(25);
+            em.remove(em.find(Member.class, member4Id));
+        });
+
+        List<TeamStatsDto> stats = teamStatistics.getStats();
+
+        TeamStatsDto teamA = stats.get(0);
+        assertThat(teamA.getTeamId()).isEqualTo(teamAId);
+        assertThat(teamA.getCount()).isEqualTo(1);
+        assertThat(teamA.getAgeMax()).isEqualTo(10);
+
+        TeamStatsDto teamB = stats.get(1);
+        assertThat(teamB.getCount()).isEqualTo(2);
+        assertThat(teamB.getAgeSum()).isEqualTo(55);
+        assertThat(teamB.getAgeMin()).isEqualTo(25);
+        assertThat(teamB.getAgeMax()).isEqualTo(30);
+
+        // 증분 갱신 결과가 DB 집계와 같다. -> reconcile 해도 바뀌지 않는다.
+        teamStatistics.reconcile();
+        assertThat(teamStatistics.getStats()).isEqualTo(stats);
+    }
+}